@@ -0,0 +1,193 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Throughput and allocation of the integrator, the synapse, the mesh builder, end-to-end linear and mesh propagation
+ * and NetworkEngine steps. The size parameters give the scaling curves.
+ *
+ * The simulation lives in the default package, which code in a package cannot name, so every state looks its case up
+ * once through SimulationBenchmark.setUp and the benchmark runs the operation returned.
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimulationBenchmarks {
+
+	/**
+	 * Returns the operation of a case set up by SimulationBenchmark in the default package
+	 * @param name
+	 * @param size
+	 * @return
+	 */
+	static Runnable setUp(String name, int size) {
+		try {
+			return (Runnable) Class.forName("SimulationBenchmark").getMethod("setUp", String.class, int.class)
+					.invoke(null, name, size);
+		}
+		catch(ReflectiveOperationException e) {
+			throw new IllegalStateException("Cannot set up benchmark case " + name, e);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class HodgkinHuxley {
+		@Param({"traces", "scalars"})
+		String output;
+		Runnable operation;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			operation = SimulationBenchmarks.setUp("hh.runSimulation." + output, 1);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class SingleSynapse {
+		Runnable operation;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			operation = SimulationBenchmarks.setUp("synapse.process", 1);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class MeshBuild {
+		@Param({"10", "25", "50", "100"})
+		int neuronsPerRow;
+		Runnable operation;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			operation = SimulationBenchmarks.setUp("mesh.setUpNeuronMesh", neuronsPerRow);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class LinearPropagation {
+		@Param({"100", "1000", "10000"})
+		int neurons;
+		Runnable operation;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			operation = SimulationBenchmarks.setUp("propagation.linear", neurons);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class MeshPropagation {
+		@Param({"10", "25", "50", "100"})
+		int neuronsPerRow;
+		Runnable operation;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			operation = SimulationBenchmarks.setUp("propagation.mesh", neuronsPerRow);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class MeshEngine {
+		@Param({"10", "25", "50", "100"})
+		int neuronsPerRow;
+		@Param({"false", "true"})
+		boolean rateTable;
+		Runnable operation;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			operation = SimulationBenchmarks.setUp(rateTable ? "engine.mesh.step.table" : "engine.mesh.step", neuronsPerRow);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class TopologyEngine {
+		@Param({"tree", "lattice3D", "random", "smallWorld", "scaleFree"})
+		String topology;
+		@Param({"10000"})
+		int neurons;
+		Runnable operation;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			operation = SimulationBenchmarks.setUp("engine.topology." + topology, neurons);
+		}
+	}
+
+	@Benchmark
+	public void hodgkinHuxleyRunSimulation(HodgkinHuxley state) {
+		state.operation.run();
+	}
+
+	@Benchmark
+	public void synapseProcess(SingleSynapse state) {
+		state.operation.run();
+	}
+
+	@Benchmark
+	public void meshSetUpNeuronMesh(MeshBuild state) {
+		state.operation.run();
+	}
+
+	@Benchmark
+	public void linearPropagation(LinearPropagation state) {
+		state.operation.run();
+	}
+
+	@Benchmark
+	public void meshPropagation(MeshPropagation state) {
+		state.operation.run();
+	}
+
+	@Benchmark
+	public void engineMeshStep(MeshEngine state) {
+		state.operation.run();
+	}
+
+	@Benchmark
+	public void engineTopologyStep(TopologyEngine state) {
+		state.operation.run();
+	}
+
+	/**
+	 * Runs the benchmarks with the gc profiler, so every result comes with its allocation rate.
+	 * Takes the usual JMH options, such as a benchmark name filter or -p neuronsPerRow=50.
+	 * @param args
+	 * @throws RunnerException
+	 * @throws CommandLineOptionException
+	 */
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		OptionsBuilder builder = new OptionsBuilder();
+		if(commandLine.getIncludes().isEmpty()) {
+			builder.include(SimulationBenchmarks.class.getName());
+		}
+		Options options = builder.parent(commandLine).addProfiler(GCProfiler.class).build();
+		new Runner(options).run();
+	}
+}
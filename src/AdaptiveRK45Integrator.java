@@ -0,0 +1,154 @@
+/**
+ * Adaptive Dormand-Prince 5(4) Runge-Kutta integrator. Each step is checked against the embedded fourth order solution
+ * and the step size grows through the quiet stretches between spikes and shrinks on the upstroke to keep the local
+ * error under the tolerance.
+ *
+ */
+public class AdaptiveRK45Integrator implements MembraneIntegrator {
+
+	private static final double SAFETY = 0.9;
+	private static final double MIN_SCALE = 0.2;
+	private static final double MAX_SCALE = 5.0;
+
+	/* Dormand-Prince tableau */
+	private static final double[][] A = {
+		{},
+		{1.0/5},
+		{3.0/40, 9.0/40},
+		{44.0/45, -56.0/15, 32.0/9},
+		{19372.0/6561, -25360.0/2187, 64448.0/6561, -212.0/729},
+		{9017.0/3168, -355.0/33, 46732.0/5247, 49.0/176, -5103.0/18656},
+		{35.0/384, 0, 500.0/1113, 125.0/192, -2187.0/6784, 11.0/84}
+	};
+	/* Difference between the fifth and fourth order weights */
+	private static final double[] E = {71.0/57600, 0, -71.0/16695, 71.0/1920, -17253.0/339200, 22.0/525, -1.0/40};
+
+	private final double tolerance;
+	private final double minStep;
+	private final double maxStep;
+	private double nextStep;
+	private long stepsTaken;
+	private long stepsRejected;
+
+	private final double[][] k = new double[7][4];
+	private final double[] y = new double[4];
+	private final double[] stage = new double[4];
+
+	/**
+	 * Creates an integrator with absolute and relative tolerance, taking steps between 1e-5 and 1 ms
+	 * @param tolerance
+	 */
+	public AdaptiveRK45Integrator(double tolerance) {
+		this(tolerance, 1e-5, 1.0);
+	}
+
+	/**
+	 * Creates an integrator
+	 * @param tolerance absolute and relative local error allowed per step
+	 * @param minStep smallest step in ms, taken even if the error is above tolerance
+	 * @param maxStep largest step in ms
+	 */
+	public AdaptiveRK45Integrator(double tolerance, double minStep, double maxStep) {
+		this.tolerance = tolerance;
+		this.minStep   = minStep;
+		this.maxStep   = maxStep;
+		this.nextStep  = Math.min(0.01, maxStep);
+	}
+
+	@Override
+	public void advance(MembraneState state, HodgkinHuxleyParameters parameters, double current, double duration) {
+		y[0] = state.getVoltage();
+		y[1] = state.getN();
+		y[2] = state.getM();
+		y[3] = state.getH();
+
+		double remaining = duration;
+		while(remaining > 1e-12) {
+			double dt = Math.min(nextStep, remaining);
+			double error = attempt(parameters, current, dt);
+			double scale = error == 0 ? MAX_SCALE : Math.min(MAX_SCALE, Math.max(MIN_SCALE, SAFETY * Math.pow(error, -0.2)));
+
+			if(error <= 1 || dt <= minStep) {
+				for(int i = 0; i < 4; i++) {
+					y[i] = stage[i];
+				}
+				remaining -= dt;
+				stepsTaken++;
+				//a step shortened to land on the end of the interval says nothing about the next step size
+				if(dt == nextStep || scale < 1) {
+					nextStep = dt * scale;
+				}
+			}
+			else {
+				nextStep = dt * scale;
+				stepsRejected++;
+			}
+			nextStep = Math.max(minStep, Math.min(maxStep, nextStep));
+		}
+		state.set(y[0], y[1], y[2], y[3]);
+	}
+
+	/**
+	 * Computes one step of size dt from y into stage
+	 * @param parameters
+	 * @param current
+	 * @param dt
+	 * @return the scaled error estimate, accepted if at most 1
+	 */
+	private double attempt(HodgkinHuxleyParameters parameters, double current, double dt) {
+		for(int s = 0; s < 7; s++) {
+			for(int i = 0; i < 4; i++) {
+				double sum = y[i];
+				for(int j = 0; j < s; j++) {
+					sum += dt * A[s][j] * k[j][i];
+				}
+				stage[i] = sum;
+			}
+			MembraneState.derivatives(stage[0], stage[1], stage[2], stage[3], current, parameters, k[s]);
+		}
+		//the last stage is evaluated at the fifth order solution, which is left in stage
+
+		double error = 0;
+		for(int i = 0; i < 4; i++) {
+			double local = 0;
+			for(int s = 0; s < 7; s++) {
+				local += E[s] * k[s][i];
+			}
+			double scale = tolerance + tolerance * Math.max(Math.abs(y[i]), Math.abs(stage[i]));
+			error = Math.max(error, Math.abs(dt * local) / scale);
+		}
+		return error;
+	}
+
+	/**
+	 * Returns the number of steps thrown away because their error was above tolerance
+	 * @return
+	 */
+	public long getStepsRejected() {
+		return stepsRejected;
+	}
+
+	/**
+	 * Returns the step size the error control settled on last
+	 */
+	@Override
+	public double getPreferredStep(HodgkinHuxleyParameters parameters) {
+		return nextStep;
+	}
+
+	@Override
+	public long getStepsTaken() {
+		return stepsTaken;
+	}
+
+	@Override
+	public void resetStatistics() {
+		stepsTaken = 0;
+		stepsRejected = 0;
+	}
+
+	@Override
+	public String getName() {
+		return "Adaptive RK45";
+	}
+}
@@ -0,0 +1,71 @@
+import java.util.Arrays;
+
+/**
+ * Retains the samples of one neuron in growable primitive arrays, for callers that do want the whole history
+ *
+ */
+public class ArrayTraceSink implements TraceSink {
+
+	private final int neuronId;
+	private double[] time;
+	private double[] voltage;
+	private double[] conductanceK;
+	private double[] conductanceNa;
+	private int size;
+
+	/**
+	 * @param neuronId the only neuron whose samples are kept
+	 * @param initialCapacity
+	 */
+	public ArrayTraceSink(int neuronId, int initialCapacity) {
+		this.neuronId = neuronId;
+		int capacity = Math.max(initialCapacity, 16);
+		time          = new double[capacity];
+		voltage       = new double[capacity];
+		conductanceK  = new double[capacity];
+		conductanceNa = new double[capacity];
+	}
+
+	@Override
+	public void sample(int neuronId, double time, double voltage, double conductanceK, double conductanceNa) {
+		if(neuronId != this.neuronId) {
+			return;
+		}
+		if(size == this.time.length) {
+			int capacity = size * 2;
+			this.time          = Arrays.copyOf(this.time, capacity);
+			this.voltage       = Arrays.copyOf(this.voltage, capacity);
+			this.conductanceK  = Arrays.copyOf(this.conductanceK, capacity);
+			this.conductanceNa = Arrays.copyOf(this.conductanceNa, capacity);
+		}
+		this.time[size]          = time;
+		this.voltage[size]       = voltage;
+		this.conductanceK[size]  = conductanceK;
+		this.conductanceNa[size] = conductanceNa;
+		size++;
+	}
+
+	/**
+	 * Returns the number of samples kept
+	 * @return
+	 */
+	public int size() {
+		return size;
+	}
+
+	public double[] getTimeData() {
+		return Arrays.copyOf(time, size);
+	}
+
+	public double[] getVoltageData() {
+		return Arrays.copyOf(voltage, size);
+	}
+
+	public double[] getConductanceKData() {
+		return Arrays.copyOf(conductanceK, size);
+	}
+
+	public double[] getConductanceNaData() {
+		return Arrays.copyOf(conductanceNa, size);
+	}
+}
@@ -1,35 +1,67 @@
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
- * Data class to send vesicles across the Synapse
+ * Data class to send vesicles across the Synapse.
+ * A view of one axon terminal in a SynapticStore, which keeps its signal and how many vesicles it holds.
  *
  */
 public class AxonTerminal {
 	
-	private double signal;
-	private List<Vesicle> vesiclesList;
-	private static final int NUM_VESICLES = 3;
+	private final SynapticStore store;
+	private final int index;
+	private List<Vesicle> vesicles = Collections.emptyList();
 	
 	/**
- 	 * Instantiates default 3 number of vesicles
- 	 * @param signal
+ 	 * Instantiates a stand-alone terminal with the default 3 vesicles
  	 */
 	public AxonTerminal() {
-		signal = 0;
-		vesiclesList = new ArrayList<>();
-		for(int i = 0; i < NUM_VESICLES; i++) {
-			vesiclesList.add(new Vesicle());
+		this(new SynapticStore(0, 1), 0);
+		store.allocateAxonTerminals(1);
+	}
+	
+	/**
+	 * Views an axon terminal of a store
+	 * @param store
+	 * @param index
+	 */
+	AxonTerminal(SynapticStore store, int index) {
+		this.store = store;
+		this.index = index;
+	}
+	
+	/**
+	 * Returns all vesicles it contains. The store only keeps their number, so the vesicles are created when it changes.
+	 * @return read only list
+	 */
+	public List<Vesicle> getVesicles() {
+		int count = store.getVesicleCount(index);
+		if(vesicles.size() != count) {
+			List<Vesicle> vesiclesList = new ArrayList<>(count);
+			for(int i = 0; i < count; i++) {
+				vesiclesList.add(new Vesicle());
+			}
+			vesicles = Collections.unmodifiableList(vesiclesList);
 		}
-
+		return vesicles;
 	}
 	
 	/**
-	 * Returns all vesicles it contains
+	 * Returns how many neurotransmitters of a type all vesicles of this terminal release together
+	 * @param type
 	 * @return
 	 */
-	public List<Vesicle> getVesicles() {
-		return vesiclesList;
+	public int getTransmitterCount(int type) {
+		return store.transmitterCount(index, 1, type);
+	}
+	
+	/**
+	 * Returns the signal of the terminal
+	 * @return
+	 */
+	public double getSignal() {
+		return store.getTerminalSignal(index);
 	}
 	
 	/**
@@ -37,6 +69,6 @@ public class AxonTerminal {
 	 * @param signal
 	 */
 	public void setSignal(double signal) {
-		this.signal = signal;
+		store.setTerminalSignal(index, signal);
 	}
 }
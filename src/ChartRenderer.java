@@ -0,0 +1,231 @@
+import java.awt.Color;
+import java.io.Closeable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.xeiam.xchart.BitmapEncoder;
+import com.xeiam.xchart.Chart;
+import com.xeiam.xchart.Series;
+import com.xeiam.xchart.SeriesMarker;
+
+/**
+ * Renders voltage and conductance charts on background threads so plotting never holds up a simulation.
+ * Traces are reduced to the minimum and maximum of each pixel column before they are charted, which keeps every spike
+ * peak and trough while handing XChart at most two points per column, and several neurons can be rendered as one job.
+ *
+ */
+public class ChartRenderer implements Closeable {
+
+	private final Path outputDirectory;
+	private final int width;
+	private final int height;
+	private final ExecutorService executor;
+
+	/**
+	 * Traces of one neuron to chart. The arrays are read on a rendering thread and must not be changed after submission.
+	 *
+	 */
+	public static class ChartJob {
+		private final String name;
+		private final double[] time;
+		private final double[] voltage;
+		private final double[] conductanceK;
+		private final double[] conductanceNa;
+
+		/**
+		 * @param name prefix of the image files
+		 * @param time
+		 * @param voltage
+		 * @param conductanceK
+		 * @param conductanceNa
+		 */
+		public ChartJob(String name, double[] time, double[] voltage, double[] conductanceK, double[] conductanceNa) {
+			this.name = name;
+			this.time = time;
+			this.voltage = voltage;
+			this.conductanceK = conductanceK;
+			this.conductanceNa = conductanceNa;
+		}
+	}
+
+	/**
+	 * Creates a renderer writing 1000 x 1000 images
+	 * @param outputDirectory created if missing
+	 * @param numThreads rendering threads
+	 */
+	public ChartRenderer(Path outputDirectory, int numThreads) {
+		this(outputDirectory, numThreads, 1000, 1000);
+	}
+
+	/**
+	 * Creates a renderer
+	 * @param outputDirectory created if missing
+	 * @param numThreads rendering threads
+	 * @param width image width in pixels, also the number of columns traces are reduced to
+	 * @param height image height in pixels
+	 */
+	public ChartRenderer(Path outputDirectory, int numThreads, int width, int height) {
+		this.outputDirectory = outputDirectory;
+		this.width = width;
+		this.height = height;
+		executor = Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "chart-renderer");
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Queues the charts of one neuron
+	 * @param job
+	 * @return completes when the images are written
+	 */
+	public Future<?> submit(ChartJob job) {
+		return submitBatch(Collections.singletonList(job));
+	}
+
+	/**
+	 * Queues the charts of several neurons as a single rendering task
+	 * @param jobs
+	 * @return completes when every image of the batch is written
+	 */
+	public Future<?> submitBatch(List<ChartJob> jobs) {
+		final List<ChartJob> batch = new ArrayList<>(jobs);
+		return executor.submit(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				Files.createDirectories(outputDirectory);
+				for(ChartJob job : batch) {
+					render(job);
+				}
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Draws the four charts of one neuron
+	 * @param job
+	 * @throws Exception
+	 */
+	private void render(ChartJob job) throws Exception {
+		double[][] voltage = downsampleMinMax(job.time, job.voltage, width);
+		double[][] conductanceK = downsampleMinMax(job.time, job.conductanceK, width);
+		double[][] conductanceNa = downsampleMinMax(job.time, job.conductanceNa, width);
+
+		/* Creates Time Vs Voltage Conductance Graph */
+		Chart chartTimeVsVoltage = newChart("Voltage over Time in Simulated Neuron", "Voltage (mEv)");
+		addSeries(chartTimeVsVoltage, "Time Vs Voltage", voltage, Color.BLUE);
+		save(chartTimeVsVoltage, job.name + "_Time_Vs_Voltage.jpg");
+
+		/* Creates Time Vs K Conductance Graph */
+		Chart chartTimeVsKConductance = newChart("Conductance of Potassium Ions in Simulated Neuron", "Conductance (S)");
+		addSeries(chartTimeVsKConductance, "Time Vs K Conductance", conductanceK, Color.GREEN);
+		save(chartTimeVsKConductance, job.name + "_Time_Vs_KConductance.jpg");
+
+		/* Creates Time Vs Na Conductance Graph */
+		Chart chartTimeVsNaConductance = newChart("Conductance of Sodium Ions in Simulated Neuron", "Conductance (S)");
+		addSeries(chartTimeVsNaConductance, "Time Vs Na Conductance", conductanceNa, Color.RED);
+		save(chartTimeVsNaConductance, job.name + "_Time_Vs_NaConductance.jpg");
+
+		/* Creates Time Vs Na Conductance and Time vs K Conductance Graph */
+		Chart chartTimeVsKNaConductance = newChart("Conductance of Sodium and Potassium Ions in Simulated Neuron", "Conductance (S)");
+		addSeries(chartTimeVsKNaConductance, "Time Vs K Conductance", conductanceK, Color.GREEN);
+		addSeries(chartTimeVsKNaConductance, "Time Vs Na Conductance", conductanceNa, Color.RED);
+		save(chartTimeVsKNaConductance, job.name + "_Time_Vs_KNaConductance.jpg");
+	}
+
+	private Chart newChart(String title, String yAxisTitle) {
+		Chart chart = new Chart(width, height);
+		chart.setChartTitle(title);
+		chart.setXAxisTitle("Time (ms)");
+		chart.setYAxisTitle(yAxisTitle);
+		return chart;
+	}
+
+	private static void addSeries(Chart chart, String name, double[][] points, Color color) {
+		Series series = chart.addSeries(name, points[0], points[1]);
+		series.setMarker(SeriesMarker.NONE);
+		series.setLineColor(color);
+	}
+
+	private void save(Chart chart, String fileName) throws Exception {
+		BitmapEncoder.saveJPGWithQuality(chart, outputDirectory.resolve(fileName).toString(), 0.95f);
+	}
+
+	/**
+	 * Reduces a trace to at most two points per column: the minimum and the maximum of the samples falling in it,
+	 * kept in time order. Traces that already fit are returned unchanged.
+	 * @param time
+	 * @param values
+	 * @param columns
+	 * @return x values at index 0 and y values at index 1
+	 */
+	public static double[][] downsampleMinMax(double[] time, double[] values, int columns) {
+		int length = Math.min(time.length, values.length);
+		if(length <= 2 * columns) {
+			return new double[][]{time, values};
+		}
+		double[] x = new double[2 * columns];
+		double[] y = new double[2 * columns];
+		int count = 0;
+		for(int column = 0; column < columns; column++) {
+			int from = (int) ((long) length * column / columns);
+			int to = (int) ((long) length * (column + 1) / columns);
+			int min = from;
+			int max = from;
+			for(int i = from + 1; i < to; i++) {
+				if(values[i] < values[min]) {
+					min = i;
+				}
+				if(values[i] > values[max]) {
+					max = i;
+				}
+			}
+			int first = Math.min(min, max);
+			int second = Math.max(min, max);
+			x[count] = time[first];
+			y[count++] = values[first];
+			if(second != first) {
+				x[count] = time[second];
+				y[count++] = values[second];
+			}
+		}
+		return new double[][]{Arrays.copyOf(x, count), Arrays.copyOf(y, count)};
+	}
+
+	/**
+	 * Stops accepting jobs without waiting; the queued ones still finish and the threads then exit
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	/**
+	 * Stops accepting jobs and waits for the queued ones to finish
+	 */
+	@Override
+	public void close() {
+		executor.shutdown();
+		try {
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
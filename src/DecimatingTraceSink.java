@@ -0,0 +1,39 @@
+import java.util.Arrays;
+
+/**
+ * Forwards every k-th sample of each neuron to another sink.
+ *
+ * Not thread-safe: the per neuron counters grow on demand, so neurons stepped concurrently, as by the parallel
+ * engines, need a sink each or a caller that synchronizes.
+ *
+ */
+public class DecimatingTraceSink implements TraceSink {
+
+	private final TraceSink downstream;
+	private final int interval;
+	private int[] counters = new int[1];
+
+	/**
+	 * @param downstream sink receiving the kept samples
+	 * @param interval keep one sample out of this many, starting with the first
+	 */
+	public DecimatingTraceSink(TraceSink downstream, int interval) {
+		if(interval < 1) {
+			throw new IllegalArgumentException("Interval must be at least 1");
+		}
+		this.downstream = downstream;
+		this.interval   = interval;
+	}
+
+	@Override
+	public void sample(int neuronId, double time, double voltage, double conductanceK, double conductanceNa) {
+		if(neuronId >= counters.length) {
+			counters = Arrays.copyOf(counters, Math.max(neuronId + 1, counters.length * 2));
+		}
+		int count = counters[neuronId];
+		if(count == 0) {
+			downstream.sample(neuronId, time, voltage, conductanceK, conductanceNa);
+		}
+		counters[neuronId] = count + 1 == interval ? 0 : count + 1;
+	}
+}
@@ -2,25 +2,36 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Data class for incoming signals
+ * Data class for incoming signals.
+ * A view of one dendrite in a SynapticStore; two views of the same index see the same signal and receptors.
  *
  */
 public class Dendrite {
 	
-	private double signal = 0;
-	private DendriteReceptor receptor1;
-	private DendriteReceptor receptor2;
+	private final SynapticStore store;
+	private final int index;
+	private DendriteReceptor dopamineReceptor;
+	private DendriteReceptor antidopamineReceptor;
 	
 	public static final int DOPAMINE = 1;
 	public static final int ANTIDOPAMINE = 2;
 
 	/**
-	 * Instantiates the incoming signal and receptors on the dendrite
-	 * @param signal
+	 * Instantiates a stand-alone dendrite with no signal and empty receptors
 	 */
 	public Dendrite() {
-		receptor1 = new DendriteReceptor(DOPAMINE);
-		receptor2 = new DendriteReceptor(ANTIDOPAMINE);
+		this(new SynapticStore(1, 0), 0);
+		store.allocateDendrites(1);
+	}
+	
+	/**
+	 * Views a dendrite of a store
+	 * @param store
+	 * @param index
+	 */
+	Dendrite(SynapticStore store, int index) {
+		this.store = store;
+		this.index = index;
 	}
 	
 	/**
@@ -28,7 +39,15 @@ public class Dendrite {
 	 * @return signal
 	 */
 	public boolean isSignalPresent() {
-		return (signal > 0);
+		return (getSignal() > 0);
+	}
+	
+	/**
+	 * Returns the signal received from the synapse
+	 * @return
+	 */
+	public double getSignal() {
+		return store.getDendriteSignal(index);
 	}
 	
 	/**
@@ -36,7 +55,68 @@ public class Dendrite {
 	 * @param signal
 	 */
 	public void setSignal(double signal){
-		this.signal = signal;
+		store.setDendriteSignal(index, signal);
+	}
+	
+	/**
+	 * Starts a postsynaptic current of an amplitude in this dendrite, summed with the currents already flowing
+	 * @param amplitude
+	 */
+	public void receive(double amplitude) {
+		store.release(index, amplitude);
+	}
+	
+	/**
+	 * Returns the postsynaptic current the dendrite carries now
+	 * @return
+	 */
+	public double getCurrent() {
+		return store.getCurrent(index);
+	}
+	
+	/**
+	 * Clears the signal and empties both receptors
+	 */
+	public void reset() {
+		store.resetDendrites(index, 1);
+	}
+	
+	/**
+	 * Returns the receptor for a neurotransmitter type, or null if the dendrite has none.
+	 * Receptor views are created on first use and reused afterwards.
+	 * @param receptorType
+	 * @return
+	 */
+	public DendriteReceptor getReceptor(int receptorType) {
+		if(receptorType == DOPAMINE) {
+			if(dopamineReceptor == null) {
+				dopamineReceptor = new DendriteReceptor(store, SynapticStore.receptorSlot(index, DOPAMINE), DOPAMINE);
+			}
+			return dopamineReceptor;
+		}
+		if(receptorType == ANTIDOPAMINE) {
+			if(antidopamineReceptor == null) {
+				antidopamineReceptor = new DendriteReceptor(store, SynapticStore.receptorSlot(index, ANTIDOPAMINE), ANTIDOPAMINE);
+			}
+			return antidopamineReceptor;
+		}
+		return null;
+	}
+	
+	/**
+	 * Returns the store holding this dendrite
+	 * @return
+	 */
+	SynapticStore getStore() {
+		return store;
+	}
+	
+	/**
+	 * Returns the index of this dendrite in its store
+	 * @return
+	 */
+	int getIndex() {
+		return index;
 	}
 	
 	/**
@@ -45,8 +125,8 @@ public class Dendrite {
 	 */
 	public List<DendriteReceptor> getReceptors() {
 		List<DendriteReceptor> list = new ArrayList<>();
-		list.add(receptor1);
-		list.add(receptor2);
+		list.add(getReceptor(DOPAMINE));
+		list.add(getReceptor(ANTIDOPAMINE));
 		return list;
 	}
 }
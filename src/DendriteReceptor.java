@@ -1,11 +1,13 @@
 /**
- * Handles interaction between the neurotransmitter and the signal-receiving neuron
+ * Handles interaction between the neurotransmitter and the signal-receiving neuron.
+ * A view of one receptor slot in a SynapticStore.
  *
  */
 public class DendriteReceptor {
 	
-	private int receptorType;
-	private Neurotransmitter neuroTransmitter;
+	private final int receptorType;
+	private final SynapticStore store;
+	private final int slot;
 	
 	
 	/**
@@ -13,8 +15,20 @@ public class DendriteReceptor {
 	 * @param receptorType
 	 */
 	public DendriteReceptor(int receptorType) {
-		 this.receptorType= receptorType;
-		 neuroTransmitter = null;
+		this(new SynapticStore(1, 0), 0, receptorType);
+		store.allocateDendrites(1);
+	}
+	
+	/**
+	 * Views a receptor slot of a store
+	 * @param store
+	 * @param slot
+	 * @param receptorType
+	 */
+	DendriteReceptor(SynapticStore store, int slot, int receptorType) {
+		this.store = store;
+		this.slot = slot;
+		this.receptorType = receptorType;
 	}
 
 	/**
@@ -23,8 +37,17 @@ public class DendriteReceptor {
 	 * @return
 	 */
 	public boolean setNeurotransmitter(Neurotransmitter neurotransmitter) {
-		if(receptorType == neurotransmitter.getTransmitterType()) {
-			this.neuroTransmitter = neurotransmitter;
+		return bind(neurotransmitter.getTransmitterType());
+	}
+	
+	/**
+	 * Binds one neurotransmitter of a type if it matches the receptor type and the receptor is empty
+	 * @param transmitterType
+	 * @return
+	 */
+	public boolean bind(int transmitterType) {
+		if(receptorType == transmitterType && !store.isOccupied(slot)) {
+			store.setOccupied(slot, true);
 			return true;
 		}
 		return false;
@@ -34,7 +57,7 @@ public class DendriteReceptor {
 	 * Empty the receptor of any neurotransmitters
 	 */
 	public void emptyReceptor() {
-		neuroTransmitter = null;
+		store.setOccupied(slot, false);
 	}
 	
 	/**
@@ -50,7 +73,7 @@ public class DendriteReceptor {
 	 * @return
 	 */
 	public boolean isEmpty(){
-		return neuroTransmitter == null;
+		return !store.isOccupied(slot);
 	}
 	
 }
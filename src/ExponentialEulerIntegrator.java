@@ -0,0 +1,89 @@
+/**
+ * Rush-Larsen (exponential Euler) integrator. With V frozen over a step each gating variable relaxes exponentially towards
+ * its steady state, and with the gates frozen V relaxes exponentially towards the reversal potential weighted by the
+ * conductances. Both are solved exactly, so the scheme stays stable at time steps far beyond the forward Euler limit.
+ *
+ */
+public class ExponentialEulerIntegrator implements MembraneIntegrator {
+
+	private final double timeStep;
+	private long stepsTaken;
+
+	/**
+	 * Uses a fixed time step
+	 * @param timeStep in ms
+	 */
+	public ExponentialEulerIntegrator(double timeStep) {
+		this.timeStep = timeStep;
+	}
+
+	@Override
+	public void advance(MembraneState state, HodgkinHuxleyParameters parameters, double current, double duration) {
+		double remaining = duration;
+		while(remaining > 1e-12) {
+			double step = Math.min(timeStep, remaining);
+			step(state, parameters, current, step);
+			remaining -= step;
+			stepsTaken++;
+		}
+	}
+
+	/**
+	 * Takes one exponential Euler step
+	 * @param state
+	 * @param parameters
+	 * @param current
+	 * @param dt
+	 */
+	private void step(MembraneState state, HodgkinHuxleyParameters parameters, double current, double dt) {
+		double v = state.getVoltage();
+		double n = state.getN();
+		double m = state.getM();
+		double h = state.getH();
+
+		double g_Na = Math.pow(m, 3) * parameters.getGbarNa() * h;
+		double g_K  = Math.pow(n, 4) * parameters.getGbarK();
+		double g_L  = parameters.getGL();
+		double g_total = g_Na + g_K + g_L;
+		double v_inf = (current + g_Na*parameters.getENa() + g_K*parameters.getEK() + g_L*parameters.getEL()) / g_total;
+		double next_v = v_inf + (v - v_inf) * Math.exp(-dt * g_total / parameters.getC());
+
+		state.set(next_v, relax(n, MembraneState.alphaN(v), MembraneState.betaN(v), dt),
+				relax(m, MembraneState.alphaM(v), MembraneState.betaM(v), dt),
+				relax(h, MembraneState.alphaH(v), MembraneState.betaH(v), dt));
+	}
+
+	/**
+	 * Exact solution of dx/dt = alpha(1-x) - beta x over dt for constant rates
+	 * @param x
+	 * @param alpha
+	 * @param beta
+	 * @param dt
+	 * @return
+	 */
+	private static double relax(double x, double alpha, double beta, double dt) {
+		double rate = alpha + beta;
+		double x_inf = alpha / rate;
+		return x_inf + (x - x_inf) * Math.exp(-dt * rate);
+	}
+
+	@Override
+	public double getPreferredStep(HodgkinHuxleyParameters parameters) {
+		return timeStep;
+	}
+
+	@Override
+	public long getStepsTaken() {
+		return stepsTaken;
+	}
+
+	@Override
+	public void resetStatistics() {
+		stepsTaken = 0;
+	}
+
+	@Override
+	public String getName() {
+		return "Exponential Euler";
+	}
+}
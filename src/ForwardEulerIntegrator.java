@@ -0,0 +1,73 @@
+/**
+ * Fixed step forward Euler, the scheme of the original simulation and the reference the other integrators are compared against
+ *
+ */
+public class ForwardEulerIntegrator implements MembraneIntegrator {
+
+	private final double timeStep;
+	private final RateTable table;
+	private final double[] rates = new double[6];
+	private long stepsTaken;
+
+	/**
+	 * Uses the time step of the parameters passed to advance
+	 */
+	public ForwardEulerIntegrator() {
+		this(Double.NaN);
+	}
+
+	/**
+	 * Uses a fixed time step
+	 * @param timeStep in ms
+	 */
+	public ForwardEulerIntegrator(double timeStep) {
+		this(timeStep, null);
+	}
+
+	/**
+	 * Uses a fixed time step and reads the gating rates from a lookup table
+	 * @param timeStep in ms, NaN for the time step of the parameters
+	 * @param table gating rates, null for the exact formulas
+	 */
+	public ForwardEulerIntegrator(double timeStep, RateTable table) {
+		this.timeStep = timeStep;
+		this.table = table;
+	}
+
+	@Override
+	public void advance(MembraneState state, HodgkinHuxleyParameters parameters, double current, double duration) {
+		double dt = getPreferredStep(parameters);
+		double remaining = duration;
+		while(remaining > 1e-12) {
+			double step = Math.min(dt, remaining);
+			if(table == null) {
+				state.step(parameters, current, step);
+			}
+			else {
+				state.step(parameters, current, step, table, rates);
+			}
+			remaining -= step;
+			stepsTaken++;
+		}
+	}
+
+	@Override
+	public double getPreferredStep(HodgkinHuxleyParameters parameters) {
+		return Double.isNaN(timeStep) ? parameters.getTimeStep() : timeStep;
+	}
+
+	@Override
+	public long getStepsTaken() {
+		return stepsTaken;
+	}
+
+	@Override
+	public void resetStatistics() {
+		stepsTaken = 0;
+	}
+
+	@Override
+	public String getName() {
+		return table == null ? "Forward Euler" : "Tabulated Euler";
+	}
+}
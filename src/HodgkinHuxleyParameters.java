@@ -0,0 +1,137 @@
+/**
+ * Immutable constants of the Hodgkin Huxley model together with the time step and the stimulus protocol.
+ * A single instance can be shared by any number of neurons and threads.
+ *
+ */
+public final class HodgkinHuxleyParameters {
+
+	/**
+	 * Constants based on Hodgkin Huxley Model from HH '52 Paper, 100 ms at 0.01 ms steps with the
+	 * 50 / 0 / 50 current step protocol
+	 */
+	public static final HodgkinHuxleyParameters DEFAULT = new HodgkinHuxleyParameters(
+			36, -12, 120, 115, 0.3, 10.6, 1, 0.01, 100, 500, 2000, 50);
+
+	private final double gbar_K;
+	private final double E_K;
+	private final double gbar_Na;
+	private final double E_Na;
+	private final double g_L;
+	private final double E_L;
+	private final double C;
+
+	private final double timeStep;
+	private final int simulationTime;
+
+	private final Stimulus stimulus;
+
+	/**
+	 * Creates a parameter set
+	 * @param gbar_K maximum potassium conductance
+	 * @param E_K potassium reversal potential
+	 * @param gbar_Na maximum sodium conductance
+	 * @param E_Na sodium reversal potential
+	 * @param g_L leak conductance
+	 * @param E_L leak reversal potential
+	 * @param C membrane capacitance
+	 * @param timeStep integration step in ms
+	 * @param simulationTime length of a full run in ms
+	 * @param initialTimeSteps last step of the first current pulse
+	 * @param midTimeSteps last step of the pause between the two current pulses
+	 * @param currentLevels injected current during a pulse
+	 */
+	public HodgkinHuxleyParameters(double gbar_K, double E_K, double gbar_Na, double E_Na, double g_L, double E_L,
+			double C, double timeStep, int simulationTime, int initialTimeSteps, int midTimeSteps, double currentLevels) {
+		this(gbar_K, E_K, gbar_Na, E_Na, g_L, E_L, C, timeStep, simulationTime,
+				Stimuli.stepProtocol(initialTimeSteps, midTimeSteps, currentLevels));
+	}
+
+	/**
+	 * Creates a parameter set with an arbitrary stimulus protocol
+	 * @param gbar_K maximum potassium conductance
+	 * @param E_K potassium reversal potential
+	 * @param gbar_Na maximum sodium conductance
+	 * @param E_Na sodium reversal potential
+	 * @param g_L leak conductance
+	 * @param E_L leak reversal potential
+	 * @param C membrane capacitance
+	 * @param timeStep integration step in ms
+	 * @param simulationTime length of a full run in ms
+	 * @param stimulus injected current protocol
+	 */
+	public HodgkinHuxleyParameters(double gbar_K, double E_K, double gbar_Na, double E_Na, double g_L, double E_L,
+			double C, double timeStep, int simulationTime, Stimulus stimulus) {
+		this.gbar_K         = gbar_K;
+		this.E_K            = E_K;
+		this.gbar_Na        = gbar_Na;
+		this.E_Na           = E_Na;
+		this.g_L            = g_L;
+		this.E_L            = E_L;
+		this.C              = C;
+		this.timeStep       = timeStep;
+		this.simulationTime = simulationTime;
+		this.stimulus       = stimulus;
+	}
+
+	/**
+	 * Returns a copy of these parameters driven by another stimulus protocol
+	 * @param stimulus
+	 * @return
+	 */
+	public HodgkinHuxleyParameters withStimulus(Stimulus stimulus) {
+		return new HodgkinHuxleyParameters(gbar_K, E_K, gbar_Na, E_Na, g_L, E_L, C, timeStep, simulationTime, stimulus);
+	}
+
+	/**
+	 * Returns the injected current of the stimulus protocol at a time step
+	 * @param step
+	 * @return
+	 */
+	public double getStimulus(int step) {
+		return stimulus.current(step, timeStep);
+	}
+
+	/**
+	 * Returns the stimulus protocol
+	 * @return
+	 */
+	public Stimulus getStimulusProtocol() {
+		return stimulus;
+	}
+
+	public double getGbarK() {
+		return gbar_K;
+	}
+
+	public double getEK() {
+		return E_K;
+	}
+
+	public double getGbarNa() {
+		return gbar_Na;
+	}
+
+	public double getENa() {
+		return E_Na;
+	}
+
+	public double getGL() {
+		return g_L;
+	}
+
+	public double getEL() {
+		return E_L;
+	}
+
+	public double getC() {
+		return C;
+	}
+
+	public double getTimeStep() {
+		return timeStep;
+	}
+
+	public int getSimulationTime() {
+		return simulationTime;
+	}
+}
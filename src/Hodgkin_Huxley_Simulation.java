@@ -1,11 +1,8 @@
-import java.awt.Color;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.Future;
 
-import com.xeiam.xchart.BitmapEncoder;
-import com.xeiam.xchart.Chart;
-import com.xeiam.xchart.Series;
-import com.xeiam.xchart.SeriesMarker;
 /**
  * Creates Hodgkin Huxley Simulation based on 1952 HH paper to determine how ion 
  * conductances and voltage changes affect:
@@ -20,43 +17,25 @@ import com.xeiam.xchart.SeriesMarker;
  */
 public class Hodgkin_Huxley_Simulation {
 
-	/* Simulation time and time steps */
-	private static int simulationTime     = 100;
-	private static double timeStep        = 0.01;
+	/* Model constants, time step and stimulus protocol, shared read-only */
+	private final HodgkinHuxleyParameters parameters;
+	private final int FINAL_TIME_STEPS;
 	
-	private static int INITIAL_TIME_STEPS = 500;
-	private static int MID_TIME_STEPS     = 2000;
-	private static int FINAL_TIME_STEPS   = 0;
-	private static double currentLevels   = 50;
+	/* Membrane voltage and gating variables of this simulation only */
+	private final MembraneState state;
+	private boolean recordTraces;
+	private TraceSink traceSink = TraceSink.NONE;
+	private int neuronId = 0;
+	private SpikeRecorder spikeRecorder = new SpikeRecorder(1);
+	private int spikeId = 0;
 	
-	/* Constants based on Hodgkin Huxley Model from HH '52 Paper*/
-	private static double gbar_K  = 36;
-	private static double E_K     = -12;
-
-	private static double gbar_Na = 120;
-	private static double E_Na    = 115;
-
-	private static double g_L     = 0.3;
-	private static double E_L     = 10.6;
-	
-	private static double C       = 1;
-	
-	private static List<Double> time;
-	private static List<Double> I;
-	private static List<Double> V; 
-	
-	private static List<Double> n;
-	private static List<Double> m;
-	private static List<Double> h;	
-	
-	private static List<Double> alpha_n;
-	private static List<Double> beta_n;
+	/* Preallocated state buffers, one entry per time step */
+	private double[] time;
+	private double[] V; 
 	
-	private static List<Double> alpha_m;
-	private static List<Double> beta_m;
-	
-	private static List<Double> alpha_h;	
-	private static List<Double> beta_h;
+	private double[] n;
+	private double[] m;
+	private double[] h;
 
 	private double[] timeData;
 	private double[] voltageData;
@@ -64,212 +43,260 @@ public class Hodgkin_Huxley_Simulation {
 	private double[] conductance_NaData;
     
     /**
-     * Initializes the base configurations for the model
+     * Initializes the base configurations for the model and records full traces
      */
 	public Hodgkin_Huxley_Simulation() {
+		this(true);
+	}
+	
+	/**
+	 * Initializes the base configurations for the model
+	 * @param recordTraces if false only the current V, n, m, h scalars are kept while integrating
+	 */
+	public Hodgkin_Huxley_Simulation(boolean recordTraces) {
+		this(HodgkinHuxleyParameters.DEFAULT, recordTraces);
+	}
+	
+	/**
+	 * Initializes the model from a parameter set
+	 * @param parameters model constants, time step and stimulus protocol
+	 * @param recordTraces if false only the current V, n, m, h scalars are kept while integrating
+	 */
+	public Hodgkin_Huxley_Simulation(HodgkinHuxleyParameters parameters, boolean recordTraces) {
+		this.parameters = parameters;
+		this.recordTraces = recordTraces;
+		state = new MembraneState();
 		
-		//Create time array
-		time = new ArrayList<Double>();
-		I = new ArrayList<Double>();
-		n = new ArrayList<Double>();
-		m = new ArrayList<Double>();
-		h = new ArrayList<Double>();
-		
-		V = new ArrayList<Double>();
-		alpha_n = new ArrayList<Double>();
-		beta_n = new ArrayList<Double>();
-		alpha_m = new ArrayList<Double>();
-		beta_m = new ArrayList<Double>();
-		alpha_h = new ArrayList<Double>();
-		beta_h = new ArrayList<Double>();
+		double simulationTime = parameters.getSimulationTime();
+		double timeStep = parameters.getTimeStep();
 		
+		//Count the time steps the same way the time axis is accumulated so both agree exactly
+		int steps = 0;
 		for(double i = 0; i < simulationTime; i += timeStep) {
-			time.add(i);
+			steps++;
 		}
+		FINAL_TIME_STEPS = steps;
 		
-		V.add(0, 0.0);
-		
-		double local_v = V.get(0);
-		
-		alpha_n.add(0, 0.01*((10-local_v)/(Math.exp((10-local_v)/10) - 1)));
-		beta_n.add(0, 0.125*Math.exp(-local_v/80));
-		alpha_m.add(0, 0.1*((25-local_v)/(Math.exp((25-local_v)/10) - 1)));
-		beta_m.add(0,4*Math.exp(-local_v/18));
-		alpha_h.add(0, 0.07*Math.exp(-local_v/20));
-		beta_h.add(0, 1/(Math.exp((30-local_v)/10) + 1));
-
-		FINAL_TIME_STEPS = time.size();
-		
-		for(int i = 0; i < FINAL_TIME_STEPS; i++) {
-			if(i >= INITIAL_TIME_STEPS + 1 && i <= MID_TIME_STEPS) {
-				I.add(0.0);
-			}
-			else {
-				I.add(currentLevels);
-				
-				/* Uncomment to show the dampening effect which is caused by change in current
-				 * if(currentLevels - i >= 3) { currentLevels -= i; }
-				 * I.add(currentLevels);
-				 */
+		//Create time array
+		if(recordTraces) {
+			time = new double[FINAL_TIME_STEPS];
+			int step = 0;
+			for(double i = 0; i < simulationTime; i += timeStep) {
+				time[step++] = i;
 			}
 		}
-
-		n.add(0, alpha_n.get(0)/(alpha_n.get(0) + beta_n.get(0)));
-		m.add(0, alpha_m.get(0)/(alpha_m.get(0) + beta_m.get(0)));
-		h.add(0, alpha_h.get(0)/(alpha_h.get(0) + beta_h.get(0)));		
+		
+		if(recordTraces) {
+			V = new double[FINAL_TIME_STEPS];
+			n = new double[FINAL_TIME_STEPS];
+			m = new double[FINAL_TIME_STEPS];
+			h = new double[FINAL_TIME_STEPS];
+		}
 	}
 	
 	/**
 	 * Runs simulation for 100 ms and calcualtes required voltage/conductances
 	 */
 	public void runSimulation() {
-		double I_Na;
-		double I_K;
-		double I_L;
-		double I_ion;
-		double local_alpha_n;
-		double local_beta_n;
-		double local_alpha_m;
-		double local_beta_m;
-		double local_alpha_h;
-		double local_beta_h;
-		double local_n;
-		double local_m;
-		double local_h; 
-		double local_v;
+		double timeStep = parameters.getTimeStep();
 		
-		for(int i = 0; i < time.size()-1; i++) {
-			local_v       = V.get(i);
-
-			alpha_n.add(i, 0.01*((10-local_v)/(Math.exp((10-local_v)/10) - 1)));
-			beta_n.add(i, 0.125*Math.exp(-local_v/80));
-			alpha_m.add(i, 0.1*((25-local_v)/(Math.exp((25-local_v)/10) - 1)));
-			beta_m.add(i,4*Math.exp(-local_v/18));
-			alpha_h.add(i, 0.07*Math.exp(-local_v/20));
-			beta_h.add(i, 1/(Math.exp((30-local_v)/10) + 1));
-			
-			local_alpha_n = alpha_n.get(i);
-			local_alpha_h = alpha_h.get(i);
-			local_alpha_m = alpha_m.get(i);
-			local_beta_n  = beta_n.get(i);
-			local_beta_m  = beta_m.get(i);
-			local_beta_h  = beta_h.get(i);
-			local_n       = n.get(i);
-			local_m       = m.get(i);
-			local_h       = h.get(i);
-			
-			I_Na = (Math.pow(local_m, 3) * gbar_Na * local_h * (local_v-E_Na));
-			I_K  = (Math.pow(local_n, 4) * gbar_K  * (local_v - E_K));
-			I_L = g_L *(local_v - E_L);
-			I_ion = I.get(i) - I_K - I_Na - I_L;
-			
-			V.add(i+1, local_v + timeStep*I_ion/C);
-			n.add(i+1, local_n + timeStep*(local_alpha_n*(1-local_n) - (local_beta_n * local_n)));
-			m.add(i+1, local_m + timeStep*(local_alpha_m*(1-local_m) - (local_beta_m * local_m)));
-			h.add(i+1, local_h + timeStep*(local_alpha_h*(1-local_h) - (local_beta_h * local_h)));			
+		//Resting state from the steady state of the gating variables at V = 0
+		state.reset();
+		spikeRecorder.clear(spikeId);
+		double t = 0;
+		if(recordTraces) {
+			record(0);
 		}
+		emit(t);
 		
+		for(int i = 0; i < FINAL_TIME_STEPS-1; i++) {
+			double previousVoltage = state.getVoltage();
+			state.step(parameters, parameters.getStimulus(i), timeStep);
+			spikeRecorder.detect(spikeId, t, previousVoltage, t + timeStep, state.getVoltage());
+			t += timeStep;  //accumulated like the time axis so streamed and recorded times agree
+			if(recordTraces) {
+				record(i+1);
+			}
+			emit(t);
+		}
 		
-		/*
-		 * Performs V = V - 70. Sets to resting potential
-		 */
-		/*for(int i = 0; i < V.size(); i++) {
-			V.set(i, V.get(i) - 70);
-	    	System.out.println("voltageData: " + V.get(i));
-		}*/
+		if(!recordTraces) {
+			return;
+		}
 		
-		timeData = convertToArray(time);
-	    voltageData = convertToArray(V);
-	    conductance_KData = convertToArray(n);
-	    conductance_NaData = convertToArray(m);
+		timeData = time;
+	    voltageData = V;
+	    conductance_KData = new double[FINAL_TIME_STEPS];
+	    conductance_NaData = new double[FINAL_TIME_STEPS];
 
 	    for(int i = 0; i < conductance_KData.length; i++) {
-	    	conductance_KData[i] = Math.pow(conductance_KData[i], 4)*gbar_K;
+	    	conductance_KData[i] = Math.pow(n[i], 4)*parameters.getGbarK();
 	    }
 
 	    for(int i = 0; i < conductance_NaData.length; i++) {
-	    	conductance_NaData[i] = Math.pow(conductance_NaData[i], 3)*gbar_Na*h.get(i);
+	    	conductance_NaData[i] = Math.pow(m[i], 3)*parameters.getGbarNa()*h[i];
 	    }
 	}
 	
-	public double[] convertToArray(List<Double> list) {
-		double[] array = new double[list.size()];
-		for(int i = 0; i < list.size(); i++) {
-			array[i] = list.get(i);
+	/**
+	 * Copies the current state into the trace buffers at a time step
+	 * @param i
+	 */
+	private void record(int i) {
+		V[i] = state.getVoltage();
+		n[i] = state.getN();
+		m[i] = state.getM();
+		h[i] = state.getH();
+	}
+	
+	/**
+	 * Hands the current state to the trace sink
+	 * @param t
+	 */
+	private void emit(double t) {
+		if(traceSink == TraceSink.NONE) {
+			return;
 		}
-		return array;
+		double local_n = state.getN();
+		double local_m = state.getM();
+		traceSink.sample(neuronId, t, state.getVoltage(), Math.pow(local_n, 4)*parameters.getGbarK(),
+				Math.pow(local_m, 3)*parameters.getGbarNa()*state.getH());
 	}
 	
 	/**
-	 * Plots the Time Vs Voltage, Time Vs K Conductance, and Time Vs Na Conductance graphs using XChart library. 
-	 * @throws Exception
+	 * Streams every sample of the following runs to a sink as it is produced
+	 * @param traceSink
+	 * @param neuronId id the samples are tagged with
 	 */
-	public void plot() throws Exception {	    
-		
-	    /* Creates Time Vs Voltage Conductance Graph */
-		System.out.println("STATE: [Creating Chart 1]");
-	    Chart chartTimeVsVoltage = new Chart(1000, 1000);
-	    chartTimeVsVoltage.setChartTitle("Voltage over Time in Simulated Neuron");
-	    chartTimeVsVoltage.setXAxisTitle("Time (ms)");
-	    chartTimeVsVoltage.setYAxisTitle("Voltage (mEv)");
-	   
-	    Series timeVsVoltageSeries = chartTimeVsVoltage.addSeries("Time Vs Voltage", timeData, voltageData);
-	    timeVsVoltageSeries.setMarker(SeriesMarker.CIRCLE);
-	    timeVsVoltageSeries.setLineColor(Color.BLUE);
-	    
-	    System.out.println("STATE: [Saving to Image]");
-	    BitmapEncoder.saveJPGWithQuality(chartTimeVsVoltage, "C:\\Users\\ShreyyasV\\Desktop\\Time_Vs_Voltage2.jpg", 0.95f);
-	    System.out.println("STATE: [Complete!]");
-	    
-	    /* Creates Time Vs K Conductance Graph */
-	    System.out.println("STATE: [Creating Chart 2]");
-	    Chart chartTimeVsKConductance = new Chart(1000, 1000);
-	    chartTimeVsKConductance.setChartTitle("Conductance of Potassium Ions in Simulated Neuron");
-	    chartTimeVsKConductance.setXAxisTitle("Time (ms)");
-	    chartTimeVsKConductance.setYAxisTitle("Conductance (S)");
-	   
-	    Series timeVsConductanceKSeries = chartTimeVsKConductance.addSeries("Time Vs K Conductance", timeData, conductance_KData);
-	    timeVsConductanceKSeries.setMarker(SeriesMarker.SQUARE);
-	    timeVsConductanceKSeries.setLineColor(Color.GREEN);
-	    
-	    System.out.println("STATE: [Saving to Image]");
-	    BitmapEncoder.saveJPGWithQuality(chartTimeVsKConductance, "C:\\Users\\Tuchez\\Desktop\\Time_Vs_KConductance1.jpg", 0.95f);
-	    System.out.println("STATE: [Complete!]");
-	    
-	    /* Creates Time Vs Na Conductance Graph */
-	    System.out.println("STATE: [Creating Chart 3]");
-	    Chart chartTimeVsNaConductance = new Chart(1000, 1000);
-	    chartTimeVsNaConductance.setChartTitle("Conductance of Sodium Ions in Simulated Neuron");
-	    chartTimeVsNaConductance.setXAxisTitle("Time (ms)");
-	    chartTimeVsNaConductance.setYAxisTitle("Conductance (S)");
-	   
-	    Series timeVsConductanceNaSeries = chartTimeVsNaConductance.addSeries("Time Vs Na Conductance", timeData, conductance_NaData);
-	    timeVsConductanceNaSeries.setMarker(SeriesMarker.TRIANGLE_UP);
-	    timeVsConductanceNaSeries.setLineColor(Color.RED);
-	    
-	    System.out.println("STATE: [Saving to Image]");
-	    BitmapEncoder.saveJPGWithQuality(chartTimeVsNaConductance, "C:\\Users\\Tuchez\\Desktop\\Time_Vs_NaConductance1.jpg", 0.95f);
-	    System.out.println("STATE: [Complete!]");
-	    
-	    
-	    /* Creates Time Vs Na Conductance and Time vs K Conductance Graph */
-	    System.out.println("STATE: [Creating Chart 4]");
-	    Chart chartTimeVsKNaConductance = new Chart(1000, 1000);
-	    chartTimeVsKNaConductance.setChartTitle("Conductance of Sodium Ions in Simulated Neuron");
-	    chartTimeVsKNaConductance.setXAxisTitle("Time (ms)");
-	    chartTimeVsKNaConductance.setYAxisTitle("Conductance (S)");
-	   
-	    chartTimeVsKNaConductance.addSeries("Time Vs K Conductance", timeData, conductance_KData);
-	    timeVsConductanceKSeries.setMarker(SeriesMarker.SQUARE);
-	    timeVsConductanceKSeries.setLineColor(Color.GREEN);
-	   
-	    chartTimeVsKNaConductance.addSeries("Time Vs Na Conductance", timeData, conductance_NaData);
-	    timeVsConductanceNaSeries.setMarker(SeriesMarker.TRIANGLE_UP);
-	    timeVsConductanceNaSeries.setLineColor(Color.RED);
-	    
-	    System.out.println("STATE: [Saving to Image]");
-	    BitmapEncoder.saveJPGWithQuality(chartTimeVsKNaConductance, "C:\\Users\\Tuchez\\Desktop\\Time_Vs_KNaConductance1.jpg", 0.95f);
-	    System.out.println("STATE: [Complete!]");
+	public void setTraceSink(TraceSink traceSink, int neuronId) {
+		this.traceSink = traceSink;
+		this.neuronId = neuronId;
+	}
+	
+	/**
+	 * Records the spikes of the following runs into a recorder shared with other neurons, under an id.
+	 * By default each simulation keeps its own single neuron recorder.
+	 * @param spikeRecorder
+	 * @param id
+	 */
+	public void setSpikeRecorder(SpikeRecorder spikeRecorder, int id) {
+		this.spikeRecorder = spikeRecorder;
+		this.spikeId = id;
+	}
+	
+	/**
+	 * Returns the recorder spikes are detected into, holding the spikes of the last run
+	 * @return
+	 */
+	public SpikeRecorder getSpikeRecorder() {
+		return spikeRecorder;
+	}
+	
+	/**
+	 * Returns the spike times of the last run in ms
+	 * @return
+	 */
+	public double[] getSpikeTimes() {
+		return spikeRecorder.getSpikeTimes(spikeId);
+	}
+	
+	/**
+	 * Returns the time axis of the last run in ms, or null if traces were not recorded
+	 * @return
+	 */
+	public double[] getTimeData() {
+		return timeData;
+	}
+	
+	/**
+	 * Returns the membrane voltage trace of the last run, or null if traces were not recorded
+	 * @return
+	 */
+	public double[] getVoltageData() {
+		return voltageData;
+	}
+	
+	/**
+	 * Returns the potassium conductance trace of the last run, or null if traces were not recorded
+	 * @return
+	 */
+	public double[] getConductanceKData() {
+		return conductance_KData;
+	}
+	
+	/**
+	 * Returns the sodium conductance trace of the last run, or null if traces were not recorded
+	 * @return
+	 */
+	public double[] getConductanceNaData() {
+		return conductance_NaData;
+	}
+	
+	/**
+	 * Returns the membrane voltage at the end of the last run
+	 * @return
+	 */
+	public double getFinalVoltage() {
+		return state.getVoltage();
+	}
+	
+	/**
+	 * Returns the gating variables n, m, h at the end of the last run
+	 * @return
+	 */
+	public double[] getFinalGating() {
+		return new double[]{state.getN(), state.getM(), state.getH()};
+	}
+	
+	/**
+	 * Returns the membrane state of this simulation
+	 * @return
+	 */
+	public MembraneState getState() {
+		return state;
+	}
+	
+	/**
+	 * Returns the parameters this simulation was built from
+	 * @return
+	 */
+	public HodgkinHuxleyParameters getParameters() {
+		return parameters;
+	}
+	
+	/**
+	 * Plots the Time Vs Voltage, Time Vs K Conductance, and Time Vs Na Conductance graphs using XChart library
+	 * into the directory given by the neuron.plotDir system property, "plots" by default.
+	 * @return completes when the images are written
+	 * @throws IllegalStateException if traces are not recorded or the simulation has not run
+	 */
+	public Future<?> plot() {
+		return plot(Paths.get(System.getProperty("neuron.plotDir", "plots")));
+	}
+	
+	/**
+	 * Plots the Time Vs Voltage, Time Vs K Conductance, and Time Vs Na Conductance graphs into a directory.
+	 * Rendering happens on a background daemon thread, so wait on the returned future before the program exits.
+	 * @param outputDirectory
+	 * @return completes when the images are written
+	 * @throws IllegalStateException if traces are not recorded or the simulation has not run
+	 */
+	public Future<?> plot(Path outputDirectory) {
+		if(!recordTraces) {
+			throw new IllegalStateException("Traces are not recorded, build the simulation with recordTraces true to plot");
+		}
+		if(timeData == null) {
+			throw new IllegalStateException("Nothing to plot, run the simulation first");
+		}
+		System.out.println("STATE: [Creating Charts]");
+		ChartRenderer renderer = new ChartRenderer(outputDirectory, 1);
+		try {
+			return renderer.submit(new ChartRenderer.ChartJob("Neuron" + neuronId, timeData, voltageData,
+					conductance_KData, conductance_NaData));
+		}
+		finally {
+			renderer.shutdown();
+		}
 	}
 	
 	/**
@@ -279,8 +306,12 @@ public class Hodgkin_Huxley_Simulation {
 	public static void main(String[] args) {
 		Hodgkin_Huxley_Simulation hxs = new Hodgkin_Huxley_Simulation();
 		hxs.runSimulation();
+		SpikeRecorder spikes = hxs.getSpikeRecorder();
+		System.out.printf("Spikes: %d, first at %.3f ms, intervals %s ms\n", spikes.getSpikeCount(0),
+				spikes.getFirstSpikeTime(0), Arrays.toString(spikes.getInterSpikeIntervals(0)));
 		try {
-			hxs.plot();
+			hxs.plot().get();
+			System.out.println("STATE: [Complete!]");
 		} catch (Exception e) {
 			System.out.println("Check either File not Found Exception or IO Exception!");
 			e.printStackTrace();
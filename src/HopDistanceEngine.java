@@ -0,0 +1,281 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Counts the synapses a signal crosses between neurons: the hop distance.
+ * On a NeuronMesh the distance has a closed form, as synapses only lead right and down. On any other NetworkTopology
+ * the engine runs a breadth first search from one source or from many sources at once, in parallel.
+ *
+ * Levels with a small frontier are expanded top down from a queue, claiming neighbors in an atomic visited bitset.
+ * Once the frontier grows large, unvisited neurons instead look for a predecessor in a frontier bitset, bottom up, which
+ * touches far fewer synapses and needs no compare-and-set as every task owns its words. Distances do not depend on the
+ * number of threads. Every search keeps its state to itself, so one engine may serve several threads.
+ *
+ */
+public class HopDistanceEngine {
+
+	/* Distance of a neuron the source cannot reach */
+	public static final int UNREACHABLE = -1;
+
+	/* Queue entries or bitset words a task handles before it stops splitting */
+	private static final int TASK_SIZE = 256;
+
+	/* Search bottom up while the frontier holds more than 1/SWITCH_FRACTION of the neurons */
+	private static final int SWITCH_FRACTION = 20;
+
+	private final NetworkTopology topology;
+	private final int numNeurons;
+	private NetworkTopology incoming;
+	private volatile ForkJoinPool pool = ForkJoinPool.commonPool();
+
+	/**
+	 * @param topology
+	 */
+	public HopDistanceEngine(NetworkTopology topology) {
+		this.topology = topology;
+		this.numNeurons = topology.getNumNeurons();
+	}
+
+	/**
+	 * Returns the hop distance from mesh neuron (i0, j0) to (i, j), UNREACHABLE unless (i, j) lies right of and below it
+	 * @param i0
+	 * @param j0
+	 * @param i
+	 * @param j
+	 * @return
+	 */
+	public static int meshDistance(int i0, int j0, int i, int j) {
+		return i >= i0 && j >= j0 ? (i - i0) + (j - j0) : UNREACHABLE;
+	}
+
+	/**
+	 * Returns the hop distance between two neurons of a P x P mesh with ids i*P + j
+	 * @param numNeuronsPerRow
+	 * @param sourceId
+	 * @param targetId
+	 * @return
+	 */
+	public static int meshDistance(int numNeuronsPerRow, int sourceId, int targetId) {
+		int p = numNeuronsPerRow;
+		return meshDistance(sourceId / p, sourceId % p, targetId / p, targetId % p);
+	}
+
+	/**
+	 * Sets the distance of every neuron of a mesh from a source in closed form, in parallel
+	 * @param mesh
+	 * @param sourceId
+	 */
+	public static void setMeshDistances(NeuronMesh mesh, int sourceId) {
+		int p = mesh.getNumNeuronsPerRow();
+		TopologyGenerators.parallel(p * p, id -> mesh.getNeuron(id).setDistanceFromSource(meshDistance(p, sourceId, id)));
+	}
+
+	/**
+	 * Sets the distance of every neuron from the source it was measured from
+	 * @param neurons neuron of every id, such as NeuronMesh::getNeuron or PropagationEngine::getNeuron
+	 * @param distances
+	 */
+	public static void setDistances(IntFunction<Neuron> neurons, int[] distances) {
+		TopologyGenerators.parallel(distances.length, id -> neurons.apply(id).setDistanceFromSource(distances[id]));
+	}
+
+	/**
+	 * Returns the hop distance of every neuron from a source
+	 * @param sourceId
+	 * @return distance per neuron id, UNREACHABLE where the source cannot reach
+	 */
+	public int[] distances(int sourceId) {
+		return distances(new int[]{sourceId});
+	}
+
+	/**
+	 * Returns the hop distance of every neuron from the nearest of several sources, searched all at once
+	 * @param sourceIds
+	 * @return distance per neuron id, UNREACHABLE where no source can reach
+	 */
+	public int[] distances(int[] sourceIds) {
+		final int[] distance = new int[numNeurons];
+		Arrays.fill(distance, UNREACHABLE);
+		final LevelFrontier frontier = new LevelFrontier(numNeurons);
+		frontier.setPool(pool);
+		for(int id : sourceIds) {
+			if(frontier.claimCurrent(id)) {
+				distance[id] = 0;
+			}
+		}
+
+		final int[] offsets = topology.getOffsets();
+		final int[] targets = topology.getTargets();
+		long[] frontierBits = null;
+		for(int level = 1; frontier.size() > 0; level++) {
+			final int nextLevel = level;
+			final int[] current = frontier.current();
+			if(frontier.size() > numNeurons / SWITCH_FRACTION) {
+				//Bottom up: every unvisited neuron of a word looks for a predecessor in the frontier
+				if(frontierBits == null) {
+					frontierBits = new long[frontier.getNumWords()];
+				}
+				final long[] bits = frontierBits;
+				for(int k = 0; k < frontier.size(); k++) {
+					bits[current[k] >>> 6] |= 1L << current[k];
+				}
+				final NetworkTopology in = getIncoming();
+				frontier.forEach(0, frontier.getNumWords(), TASK_SIZE,
+						(from, to) -> bottomUpRange(frontier, in, bits, distance, nextLevel, from, to));
+				for(int k = 0; k < frontier.size(); k++) {
+					bits[current[k] >>> 6] = 0;
+				}
+			}
+			else {
+				frontier.forEach(0, frontier.size(), TASK_SIZE, (from, to) -> {
+					for(int k = from; k < to; k++) {
+						int id = current[k];
+						for(int edge = offsets[id]; edge < offsets[id + 1]; edge++) {
+							if(frontier.claimNext(targets[edge])) {
+								distance[targets[edge]] = nextLevel;
+							}
+						}
+					}
+				});
+			}
+			frontier.advance();
+		}
+		return distance;
+	}
+
+	/**
+	 * Returns the hop distances from each of several sources, one row per source. The searches run in parallel with
+	 * each other rather than level by level, so use it for many sources over small networks; passing every id gives
+	 * all pairs distances.
+	 * @param sourceIds
+	 * @return
+	 */
+	public int[][] distancesFrom(int[] sourceIds) {
+		return pool.submit(() -> IntStream.range(0, sourceIds.length).parallel()
+				.mapToObj(s -> sequentialDistances(sourceIds[s]))
+				.toArray(int[][]::new)).join();
+	}
+
+	/**
+	 * Plain breadth first search on the calling thread
+	 * @param sourceId
+	 * @return
+	 */
+	private int[] sequentialDistances(int sourceId) {
+		int[] result = new int[numNeurons];
+		Arrays.fill(result, UNREACHABLE);
+		int[] queue = new int[numNeurons];
+		int head = 0;
+		int tail = 0;
+		result[sourceId] = 0;
+		queue[tail++] = sourceId;
+		int[] offsets = topology.getOffsets();
+		int[] targets = topology.getTargets();
+		while(head < tail) {
+			int id = queue[head++];
+			for(int edge = offsets[id]; edge < offsets[id + 1]; edge++) {
+				int target = targets[edge];
+				if(result[target] == UNREACHABLE) {
+					result[target] = result[id] + 1;
+					queue[tail++] = target;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Adds the unvisited neurons of bitset words [from, to) with a predecessor in the frontier to the next level.
+	 * Only this task writes these words.
+	 */
+	private void bottomUpRange(LevelFrontier frontier, NetworkTopology in, long[] frontierBits, int[] distance, int level,
+			int from, int to) {
+		int[] offsets = in.getOffsets();
+		int[] sources = in.getTargets();
+		for(int word = from; word < to; word++) {
+			long unvisited = ~frontier.getVisitedWord(word);
+			if(word == (numNeurons - 1) >>> 6) {
+				unvisited &= -1L >>> (63 - ((numNeurons - 1) & 63));
+			}
+			long reached = 0;
+			for(long bits = unvisited; bits != 0; bits &= bits - 1) {
+				int id = (word << 6) + Long.numberOfTrailingZeros(bits);
+				for(int edge = offsets[id]; edge < offsets[id + 1]; edge++) {
+					int source = sources[edge];
+					if((frontierBits[source >>> 6] & (1L << source)) != 0) {
+						distance[id] = level;
+						reached |= 1L << id;
+						frontier.addNext(id);
+						break;
+					}
+				}
+			}
+			if(reached != 0) {
+				frontier.markVisited(word, reached);
+			}
+		}
+	}
+
+	/**
+	 * Returns the transposed topology the bottom up levels read, built on first use
+	 * @return
+	 */
+	private synchronized NetworkTopology getIncoming() {
+		if(incoming == null) {
+			incoming = topology.transpose();
+		}
+		return incoming;
+	}
+
+	/**
+	 * Runs the searches on another pool than the common ForkJoin pool
+	 * @param pool
+	 */
+	public void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	public NetworkTopology getTopology() {
+		return topology;
+	}
+
+	/**
+	 * Checks the searches against the closed form on a P x P mesh, then times the closed form over a much larger mesh
+	 * @param args P of the searched mesh and of the closed form mesh, 1000 and 10000 by default
+	 */
+	public static void main(String[] args) {
+		int searched = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int closedForm = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+
+		NetworkTopology mesh = NetworkTopology.mesh(searched);
+		HopDistanceEngine engine = new HopDistanceEngine(mesh);
+		int center = (searched / 2) * searched + searched / 2;
+		for(int sourceId : new int[]{0, center}) {
+			long start = System.nanoTime();
+			int[] distances = engine.distances(sourceId);
+			long nanos = System.nanoTime() - start;
+			int mismatches = 0;
+			for(int id = 0; id < distances.length; id++) {
+				if(distances[id] != meshDistance(searched, sourceId, id)) {
+					mismatches++;
+				}
+			}
+			System.out.printf("Search mesh(%d) from %d: %.1f ms, %d mismatches with the closed form\n", searched, sourceId,
+					nanos / 1e6, mismatches);
+		}
+
+		//Reachable count, mean and maximum distance from the top left corner, one closed form evaluation per neuron
+		long start = System.nanoTime();
+		long p = closedForm;
+		long reachable = IntStream.range(0, closedForm).parallel()
+				.mapToLong(i -> IntStream.range(0, closedForm).filter(j -> meshDistance(0, 0, i, j) >= 0).count()).sum();
+		long total = IntStream.range(0, closedForm).parallel()
+				.mapToLong(i -> IntStream.range(0, closedForm).mapToLong(j -> meshDistance(0, 0, i, j)).sum()).sum();
+		long nanos = System.nanoTime() - start;
+		System.out.printf("Closed form mesh(%d), %d neurons: %d reachable, mean %.1f and max %d hops in %.1f ms\n",
+				closedForm, p * p, reachable, (double) total / reachable, meshDistance(0, 0, closedForm - 1, closedForm - 1),
+				nanos / 1e6);
+	}
+}
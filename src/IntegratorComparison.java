@@ -0,0 +1,132 @@
+/**
+ * Runs the stimulus protocol of the HH parameters through several integrators and reports the steps each one took
+ * and its deviation from the forward Euler reference at the original 0.01 ms step. Because the upstroke of a spike is
+ * so steep, a small shift in spike timing shows up as a large pointwise voltage difference, so both the largest
+ * voltage difference and the largest spike time shift are reported.
+ *
+ */
+public class IntegratorComparison {
+
+	/* Voltage is compared and the stimulus is updated at this interval, in ms */
+	private static final double SAMPLE_INTERVAL = 0.1;
+
+	private final HodgkinHuxleyParameters parameters;
+	private final double[] reference;
+
+	/**
+	 * Computes the reference trace
+	 * @param parameters
+	 */
+	public IntegratorComparison(HodgkinHuxleyParameters parameters) {
+		this.parameters = parameters;
+		reference = run(new ForwardEulerIntegrator(parameters.getTimeStep()));
+	}
+
+	/**
+	 * Integrates the whole protocol and samples V every SAMPLE_INTERVAL
+	 * @param integrator
+	 * @return
+	 */
+	public double[] run(MembraneIntegrator integrator) {
+		int numSamples = (int) Math.round(parameters.getSimulationTime() / SAMPLE_INTERVAL);
+		double[] samples = new double[numSamples + 1];
+		MembraneState state = new MembraneState();
+		samples[0] = state.getVoltage();
+		for(int s = 0; s < numSamples; s++) {
+			int step = (int) Math.round(s * SAMPLE_INTERVAL / parameters.getTimeStep());
+			integrator.advance(state, parameters, parameters.getStimulus(step), SAMPLE_INTERVAL);
+			samples[s + 1] = state.getVoltage();
+		}
+		return samples;
+	}
+
+	/**
+	 * Returns the largest absolute voltage difference from the reference, NaN if the integrator blew up
+	 * @param samples
+	 * @return
+	 */
+	public double maxError(double[] samples) {
+		double error = 0;
+		for(int i = 0; i < samples.length; i++) {
+			double difference = Math.abs(samples[i] - reference[i]);
+			if(Double.isNaN(difference)) {
+				return Double.NaN;
+			}
+			error = Math.max(error, difference);
+		}
+		return error;
+	}
+
+	/**
+	 * Returns the largest shift of a spike time from the reference, in ms. Spikes are matched in order and an
+	 * integrator that gains or loses spikes scores infinity.
+	 * @param samples
+	 * @return
+	 */
+	public double maxSpikeShift(double[] samples) {
+		double[] spikes = spikeTimes(samples);
+		double[] referenceSpikes = spikeTimes(reference);
+		if(spikes.length != referenceSpikes.length) {
+			return Double.POSITIVE_INFINITY;
+		}
+		double shift = 0;
+		for(int i = 0; i < spikes.length; i++) {
+			shift = Math.max(shift, Math.abs(spikes[i] - referenceSpikes[i]));
+		}
+		return shift;
+	}
+
+	/**
+	 * Returns the upward threshold crossings of a sampled trace, linearly interpolated between samples
+	 * @param samples
+	 * @return
+	 */
+	private static double[] spikeTimes(double[] samples) {
+		int count = 0;
+		double[] times = new double[samples.length];
+		double threshold = SpikeRecorder.DEFAULT_THRESHOLD;
+		for(int i = 1; i < samples.length; i++) {
+			if(samples[i - 1] < threshold && samples[i] >= threshold) {
+				double fraction = (threshold - samples[i - 1]) / (samples[i] - samples[i - 1]);
+				times[count++] = (i - 1 + fraction) * SAMPLE_INTERVAL;
+			}
+		}
+		double[] result = new double[count];
+		System.arraycopy(times, 0, result, 0, count);
+		return result;
+	}
+
+	/**
+	 * Runs an integrator and prints a report row
+	 * @param integrator
+	 * @param setting
+	 */
+	public void report(MembraneIntegrator integrator, String setting) {
+		integrator.resetStatistics();
+		long start = System.nanoTime();
+		double[] samples = run(integrator);
+		long elapsed = System.nanoTime() - start;
+		System.out.printf("%-18s %-14s %10d %14.4f %16.4f %10.2f\n", integrator.getName(), setting,
+				integrator.getStepsTaken(), maxError(samples), maxSpikeShift(samples), elapsed / 1e6);
+	}
+
+	public static void main(String[] args) {
+		HodgkinHuxleyParameters parameters = HodgkinHuxleyParameters.DEFAULT;
+		IntegratorComparison comparison = new IntegratorComparison(parameters);
+
+		System.out.printf("%-18s %-14s %10s %14s %16s %10s\n", "Integrator", "Setting", "Steps", "Max |dV| (mV)",
+				"Spike shift (ms)", "Time (ms)");
+		comparison.report(new ForwardEulerIntegrator(parameters.getTimeStep()), "dt=" + parameters.getTimeStep());
+		for(double dt : new double[]{0.02, 0.05}) {
+			comparison.report(new ForwardEulerIntegrator(dt), "dt=" + dt);
+		}
+		comparison.report(new ForwardEulerIntegrator(parameters.getTimeStep(), RateTable.DEFAULT),
+				"dt=" + parameters.getTimeStep());
+		for(double dt : new double[]{0.01, 0.02, 0.05, 0.1}) {
+			comparison.report(new ExponentialEulerIntegrator(dt), "dt=" + dt);
+		}
+		for(double tolerance : new double[]{1e-3, 1e-4, 1e-6}) {
+			comparison.report(new AdaptiveRK45Integrator(tolerance), "tol=" + tolerance);
+		}
+	}
+}
@@ -0,0 +1,290 @@
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * Measures how quickly a signal spreads through a network from the simulated time at which each neuron is first reached.
+ * Arrivals are fed in as they happen; only the first arrival of a neuron counts. Besides the arrival time per neuron the
+ * analyzer keeps running sums and a fixed width histogram, so summary statistics, percentiles and the conduction velocity
+ * need no further pass and memory stays O(N) plus the histogram.
+ *
+ * The conduction velocity is the least squares slope through the origin of hop distance against latency, in hops per ms.
+ *
+ */
+public class LatencyAnalyzer {
+
+	/* Default histogram bin width in ms */
+	public static final double DEFAULT_BIN_WIDTH = 0.05;
+
+	private final double[] arrivals;
+	private final int[] hops;
+	private final double startTime;
+	private final double binWidth;
+
+	private long[] histogram = new long[1024];
+	private int reached = 0;
+	private double mean = 0;
+	private double sumSquares = 0;
+	private double min = Double.NaN;
+	private double max = Double.NaN;
+	private int lastId = -1;
+	private double sumHopLatency = 0;
+	private double sumLatencySquared = 0;
+	private int maxHops = 0;
+
+	/**
+	 * Creates an analyzer with the default bin width, sized by the hop distances
+	 * @param hops hop distance of every neuron from the source, negative if unreachable; when they are unknown use
+	 * the constructor taking the number of neurons
+	 * @param startTime simulated time the source was stimulated, in ms
+	 */
+	public LatencyAnalyzer(int[] hops, double startTime) {
+		this(numNeurons(hops), hops, startTime, DEFAULT_BIN_WIDTH);
+	}
+
+	private static int numNeurons(int[] hops) {
+		if(hops == null) {
+			throw new IllegalArgumentException("Hop distances are needed to size the analyzer, pass the number of neurons instead");
+		}
+		return hops.length;
+	}
+
+	/**
+	 * @param numNeurons
+	 * @param hops hop distance of every neuron from the source, negative if unreachable, or null if unknown
+	 * @param startTime simulated time the source was stimulated, in ms
+	 * @param binWidth histogram resolution of the percentiles in ms
+	 */
+	public LatencyAnalyzer(int numNeurons, int[] hops, double startTime, double binWidth) {
+		if(hops != null && hops.length != numNeurons) {
+			throw new IllegalArgumentException("Expected " + numNeurons + " hop distances, got " + hops.length);
+		}
+		arrivals = new double[numNeurons];
+		Arrays.fill(arrivals, Double.NaN);
+		this.hops = hops;
+		this.startTime = startTime;
+		this.binWidth = binWidth;
+	}
+
+	/**
+	 * Records that a signal reached a neuron. Arrivals after the first one of a neuron are ignored.
+	 * @param id
+	 * @param time simulated time in ms
+	 */
+	public void arrive(int id, double time) {
+		if(arrivals[id] == arrivals[id] || time != time) {
+			return;  //already reached, or no arrival
+		}
+		arrivals[id] = time;
+		double latency = time - startTime;
+
+		//Welford's running mean and sum of squared deviations
+		reached++;
+		double delta = latency - mean;
+		mean += delta / reached;
+		sumSquares += delta * (latency - mean);
+		if(reached == 1 || latency < min) {
+			min = latency;
+		}
+		if(reached == 1 || latency > max) {
+			max = latency;
+			lastId = id;
+		}
+
+		int bin = (int) Math.max(0, latency / binWidth);
+		if(bin >= histogram.length) {
+			histogram = Arrays.copyOf(histogram, Math.max(bin + 1, 2 * histogram.length));
+		}
+		histogram[bin]++;
+
+		if(hops != null && hops[id] > 0) {
+			sumHopLatency += hops[id] * latency;
+			sumLatencySquared += latency * latency;
+			maxHops = Math.max(maxHops, hops[id]);
+		}
+	}
+
+	/**
+	 * Records the first spike of every neuron of a network engine that has spiked
+	 * @param engine
+	 */
+	public void arriveAll(NetworkEngine engine) {
+		for(int id = 0; id < engine.getNumNeurons(); id++) {
+			arrive(id, engine.getFirstSpikeTime(id));
+		}
+	}
+
+	/**
+	 * Returns the latency of a neuron in ms, NaN if it was not reached
+	 * @param id
+	 * @return
+	 */
+	public double getLatency(int id) {
+		return arrivals[id] - startTime;
+	}
+
+	/**
+	 * Returns the latency below which a fraction of the reached neurons were reached, to histogram resolution
+	 * @param fraction between 0 and 1
+	 * @return
+	 */
+	public double getPercentile(double fraction) {
+		if(reached == 0) {
+			return Double.NaN;
+		}
+		long rank = Math.max(1, (long) Math.ceil(fraction * reached));
+		long cumulative = 0;
+		for(int bin = 0; bin < histogram.length; bin++) {
+			cumulative += histogram[bin];
+			if(cumulative >= rank) {
+				return Math.min(max, (bin + 1) * binWidth);
+			}
+		}
+		return max;
+	}
+
+	public int getNumReached() {
+		return reached;
+	}
+
+	public double getMeanLatency() {
+		return reached == 0 ? Double.NaN : mean;
+	}
+
+	public double getStandardDeviation() {
+		return reached < 2 ? Double.NaN : Math.sqrt(sumSquares / (reached - 1));
+	}
+
+	public double getMinLatency() {
+		return min;
+	}
+
+	/**
+	 * Returns the latency of the last neuron reached, the time from the first cell to the last
+	 * @return
+	 */
+	public double getMaxLatency() {
+		return max;
+	}
+
+	/**
+	 * Returns the id of the last neuron reached, -1 if none was
+	 * @return
+	 */
+	public int getLastNeuron() {
+		return lastId;
+	}
+
+	/**
+	 * Returns the effective conduction velocity in hops per ms, NaN without hop distances
+	 * @return
+	 */
+	public double getConductionVelocity() {
+		return sumLatencySquared > 0 ? sumHopLatency / sumLatencySquared : Double.NaN;
+	}
+
+	/**
+	 * Returns the counts of the latency histogram up to the last non-empty bin
+	 * @return
+	 */
+	public long[] getHistogram() {
+		int bins = max == max ? (int) (max / binWidth) + 1 : 0;
+		return Arrays.copyOf(histogram, Math.min(bins, histogram.length));
+	}
+
+	public double getBinWidth() {
+		return binWidth;
+	}
+
+	/**
+	 * Prints one report row; see printHeader
+	 * @param out
+	 * @param name
+	 */
+	public void printReport(PrintStream out, String name) {
+		out.printf("%-36s %9d/%-9d %9.3f %9.3f %9.3f %9.3f %9.3f %9.3f %9d %9.3f\n", name, reached, arrivals.length,
+				getMinLatency(), getMeanLatency(), getPercentile(0.5), getPercentile(0.9), getPercentile(0.99),
+				getMaxLatency(), maxHops, getConductionVelocity());
+	}
+
+	/**
+	 * Prints the column titles of printReport, latencies in ms
+	 * @param out
+	 */
+	public static void printHeader(PrintStream out) {
+		out.printf("%-36s %19s %9s %9s %9s %9s %9s %9s %9s %9s\n", "Topology", "Reached", "Min", "Mean", "P50", "P90",
+				"P99", "Max", "Hops", "Hops/ms");
+	}
+
+	/**
+	 * Prints the latency of every neuron of a P x P mesh (id i*P + j) as a grid in ms, "-" where it was not reached
+	 * @param out
+	 * @param numNeuronsPerRow
+	 */
+	public void printMeshMap(PrintStream out, int numNeuronsPerRow) {
+		for(int i = 0; i < numNeuronsPerRow; i++) {
+			for(int j = 0; j < numNeuronsPerRow; j++) {
+				double latency = getLatency(i * numNeuronsPerRow + j);
+				if(latency == latency) {
+					out.printf("%7.2f ", latency);
+				}
+				else {
+					out.printf("%7s ", "-");
+				}
+			}
+			out.println();
+		}
+	}
+
+	/**
+	 * Stimulates neuron 0 of each topology with a network engine and reports how the first spikes spread.
+	 * Topologies are given as TopologyGenerators.parse specs; the mesh map of the first mesh is printed too.
+	 * @param args topology specs, a default set when empty
+	 */
+	public static void main(String[] args) {
+		String[] specs = args.length > 0 ? args : new String[]{"chain:100", "mesh:12", "tree:1023:2",
+				"lattice3D:6:6:6", "smallWorld:1000:4:0.1", "scaleFree:1000:2", "random:1000:0.004"};
+		double simulationTime = 400;
+		double stimulusCurrent = 10;
+		long seed = RandomService.getSeed();
+		LatencyAnalyzer meshAnalyzer = null;
+		int meshSize = 0;
+
+		System.out.println("Seed: " + seed);
+		printHeader(System.out);
+		for(String spec : specs) {
+			TopologyGenerator generator = TopologyGenerators.parse(spec, seed);
+			NetworkTopology topology = generator.generate();
+			NetworkEngine engine = new NetworkEngine(topology, HodgkinHuxleyParameters.DEFAULT);
+			engine.setRateTable(RateTable.DEFAULT);
+			engine.stimulate(0, stimulusCurrent);
+
+			int[] hops = new HopDistanceEngine(topology).distances(0);
+			int reachable = 0;
+			for(int hop : hops) {
+				if(hop >= 0) {
+					reachable++;
+				}
+			}
+			LatencyAnalyzer analyzer = new LatencyAnalyzer(hops, 0);
+			int steps = (int) Math.round(simulationTime / engine.getParameters().getTimeStep());
+			for(int s = 0; s < steps && analyzer.getNumReached() < reachable; s++) {
+				engine.step();
+				for(int id = 0; id < topology.getNumNeurons(); id++) {
+					if(engine.hasSpiked(id)) {
+						analyzer.arrive(id, engine.getFirstSpikeTime(id));
+					}
+				}
+			}
+			analyzer.printReport(System.out, generator.getName());
+			if(meshAnalyzer == null && spec.startsWith("mesh:")) {
+				meshAnalyzer = analyzer;
+				meshSize = Integer.parseInt(spec.substring(5).trim());
+			}
+		}
+		if(meshAnalyzer != null) {
+			System.out.println();
+			System.out.println("First arrival (ms):");
+			meshAnalyzer.printMeshMap(System.out, meshSize);
+		}
+	}
+}
@@ -0,0 +1,207 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * State of a level-synchronous breadth first search over neuron ids: an atomic visited bitset, the queue of the level
+ * being expanded and the queue of the level being claimed. A level is expanded by running an action over ranges of
+ * the current queue on a ForkJoin pool; every neuron claimed goes into the next queue exactly once, whichever thread
+ * claims it. Used by PropagationEngine and HopDistanceEngine.
+ *
+ * One instance serves one search at a time.
+ *
+ */
+final class LevelFrontier {
+
+	/**
+	 * Work on the half-open range [from, to) of a level
+	 *
+	 */
+	interface RangeAction {
+		void run(int from, int to);
+	}
+
+	private final AtomicLongArray visited;
+	private final AtomicInteger nextSize = new AtomicInteger();
+	private int[] current;
+	private int[] next;
+	private int size = 0;
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+	/**
+	 * @param numNeurons
+	 */
+	LevelFrontier(int numNeurons) {
+		visited = new AtomicLongArray((numNeurons + 63) >>> 6);
+		current = new int[numNeurons];
+		next = new int[numNeurons];
+	}
+
+	/**
+	 * Marks a neuron visited
+	 * @param id
+	 * @return true if this call visited it, false if it already was
+	 */
+	boolean claim(int id) {
+		int word = id >>> 6;
+		long bit = 1L << id;
+		while(true) {
+			long value = visited.get(word);
+			if((value & bit) != 0) {
+				return false;
+			}
+			if(visited.compareAndSet(word, value, value | bit)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Claims a neuron into the next level unless it was visited already
+	 * @param id
+	 * @return true if it joined the next level
+	 */
+	boolean claimNext(int id) {
+		if(!claim(id)) {
+			return false;
+		}
+		next[nextSize.getAndIncrement()] = id;
+		return true;
+	}
+
+	/**
+	 * Puts a neuron into the next level that the caller has already marked visited
+	 * @param id
+	 */
+	void addNext(int id) {
+		next[nextSize.getAndIncrement()] = id;
+	}
+
+	/**
+	 * Claims a source neuron into the current level, before the first level is expanded
+	 * @param id
+	 * @return true if it was not visited yet
+	 */
+	boolean claimCurrent(int id) {
+		if(!claim(id)) {
+			return false;
+		}
+		current[size++] = id;
+		return true;
+	}
+
+	/**
+	 * Returns 64 visited flags, bit b for neuron 64*word + b
+	 * @param word
+	 * @return
+	 */
+	long getVisitedWord(int word) {
+		return visited.get(word);
+	}
+
+	/**
+	 * Marks neurons of one word visited. Only safe while no other thread writes that word.
+	 * @param word
+	 * @param bits
+	 */
+	void markVisited(int word, long bits) {
+		visited.set(word, visited.get(word) | bits);
+	}
+
+	int getNumWords() {
+		return visited.length();
+	}
+
+	/**
+	 * Runs an action over [from, to) on the pool, split in halves until a range holds at most grain entries
+	 * @param from
+	 * @param to
+	 * @param grain
+	 * @param action
+	 */
+	void forEach(int from, int to, int grain, RangeAction action) {
+		if(to > from) {
+			pool.invoke(new RangeTask(from, to, grain, action));
+		}
+	}
+
+	/**
+	 * Makes the level claimed last the current one and starts an empty next level
+	 */
+	void advance() {
+		int[] swap = current;
+		current = next;
+		next = swap;
+		size = nextSize.getAndSet(0);
+	}
+
+	/**
+	 * Forgets every visited neuron and both levels
+	 */
+	void clear() {
+		for(int word = 0; word < visited.length(); word++) {
+			visited.set(word, 0);
+		}
+		size = 0;
+		nextSize.set(0);
+	}
+
+	/**
+	 * Neurons of the current level are current()[0 .. size()-1]
+	 * @return
+	 */
+	int[] current() {
+		return current;
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Neurons claimed into the next level so far are next()[0 .. nextSize()-1]
+	 * @return
+	 */
+	int[] next() {
+		return next;
+	}
+
+	int nextSize() {
+		return nextSize.get();
+	}
+
+	void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Splits a range in halves until small enough to run the action on
+	 *
+	 */
+	private static class RangeTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+		private final int grain;
+		private final RangeAction action;
+
+		RangeTask(int from, int to, int grain, RangeAction action) {
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+			this.action = action;
+		}
+
+		@Override
+		protected void compute() {
+			if(to - from <= grain) {
+				action.run(from, to);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new RangeTask(from, middle, grain, action), new RangeTask(middle, to, grain, action));
+		}
+	}
+}
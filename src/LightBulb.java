@@ -1,4 +1,4 @@
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Create a light bulb with a random number of photons
@@ -6,14 +6,22 @@ import java.util.Random;
  */
 public class LightBulb {
 	
-	private Random rand;
+	private SplittableRandom rand;
 	private int ceiling = 50;
 	
 	/**
 	 * Instantiates a new Light Bulb
 	 */
 	public LightBulb(){
-		rand = new Random();
+		this(RandomService.newStream());
+	}
+	
+	/**
+	 * Instantiates a new Light Bulb emitting from a given random stream
+	 * @param rand
+	 */
+	public LightBulb(SplittableRandom rand){
+		this.rand = rand;
 	}
 	
 	/**
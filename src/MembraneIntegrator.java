@@ -0,0 +1,42 @@
+/**
+ * Numerical scheme that advances a membrane state of the Hodgkin Huxley equations over an interval of constant input current.
+ * Implementations may keep scratch buffers, so one instance should only be used by one thread at a time.
+ *
+ */
+public interface MembraneIntegrator {
+
+	/**
+	 * Integrates a membrane forward in time
+	 * @param state membrane to advance in place
+	 * @param parameters model constants
+	 * @param current injected current over the whole interval
+	 * @param duration length of the interval in ms
+	 */
+	void advance(MembraneState state, HodgkinHuxleyParameters parameters, double current, double duration);
+
+	/**
+	 * Returns the step the integrator would take next from the current state. Callers driving it with an input that
+	 * changes over time, such as a decaying postsynaptic current, advance it by this much at a time with the mean
+	 * input over the step, so an adaptive integrator still chooses its own step and a fixed step one keeps its own size.
+	 * @param parameters model constants
+	 * @return in ms
+	 */
+	double getPreferredStep(HodgkinHuxleyParameters parameters);
+
+	/**
+	 * Returns the number of accepted steps taken since creation or the last resetStatistics()
+	 * @return
+	 */
+	long getStepsTaken();
+
+	/**
+	 * Clears the step counters
+	 */
+	void resetStatistics();
+
+	/**
+	 * Returns a short name for reports
+	 * @return
+	 */
+	String getName();
+}
@@ -0,0 +1,188 @@
+/**
+ * Mutable membrane voltage and gating variables (n, m, h) of a single neuron.
+ * Each neuron owns its own state so independent neurons can be integrated on different threads.
+ *
+ */
+public class MembraneState {
+
+	private double v;
+	private double n;
+	private double m;
+	private double h;
+
+	/**
+	 * Creates a membrane at rest
+	 */
+	public MembraneState() {
+		reset();
+	}
+
+	/**
+	 * Sets the membrane back to rest: V = 0 with every gating variable at its steady state
+	 */
+	public void reset() {
+		v = 0.0;
+		double local_alpha_n = alphaN(v);
+		double local_alpha_m = alphaM(v);
+		double local_alpha_h = alphaH(v);
+		n = local_alpha_n/(local_alpha_n + betaN(v));
+		m = local_alpha_m/(local_alpha_m + betaM(v));
+		h = local_alpha_h/(local_alpha_h + betaH(v));
+	}
+
+	/**
+	 * Advances the membrane by one forward Euler step
+	 * @param parameters model constants
+	 * @param current injected current during the step
+	 * @param dt step length in ms
+	 */
+	public void step(HodgkinHuxleyParameters parameters, double current, double dt) {
+		double local_alpha_n = alphaN(v);
+		double local_beta_n  = betaN(v);
+		double local_alpha_m = alphaM(v);
+		double local_beta_m  = betaM(v);
+		double local_alpha_h = alphaH(v);
+		double local_beta_h  = betaH(v);
+
+		double I_Na = (Math.pow(m, 3) * parameters.getGbarNa() * h * (v - parameters.getENa()));
+		double I_K  = (Math.pow(n, 4) * parameters.getGbarK()  * (v - parameters.getEK()));
+		double I_L  = parameters.getGL() *(v - parameters.getEL());
+		double I_ion = current - I_K - I_Na - I_L;
+
+		double next_v = v + dt*I_ion/parameters.getC();
+		n = n + dt*(local_alpha_n*(1-n) - (local_beta_n * n));
+		m = m + dt*(local_alpha_m*(1-m) - (local_beta_m * m));
+		h = h + dt*(local_alpha_h*(1-h) - (local_beta_h * h));
+		v = next_v;
+	}
+
+	/**
+	 * Advances the membrane by one forward Euler step, reading the gating rates from a lookup table
+	 * @param parameters model constants
+	 * @param current injected current during the step
+	 * @param dt step length in ms
+	 * @param table gating rates
+	 * @param rates scratch space for six rates
+	 */
+	public void step(HodgkinHuxleyParameters parameters, double current, double dt, RateTable table, double[] rates) {
+		table.lookup(v, rates);
+
+		double I_Na = (Math.pow(m, 3) * parameters.getGbarNa() * h * (v - parameters.getENa()));
+		double I_K  = (Math.pow(n, 4) * parameters.getGbarK()  * (v - parameters.getEK()));
+		double I_L  = parameters.getGL() *(v - parameters.getEL());
+		double I_ion = current - I_K - I_Na - I_L;
+
+		double next_v = v + dt*I_ion/parameters.getC();
+		n = n + dt*(rates[RateTable.ALPHA_N]*(1-n) - (rates[RateTable.BETA_N] * n));
+		m = m + dt*(rates[RateTable.ALPHA_M]*(1-m) - (rates[RateTable.BETA_M] * m));
+		h = h + dt*(rates[RateTable.ALPHA_H]*(1-h) - (rates[RateTable.BETA_H] * h));
+		v = next_v;
+	}
+
+	/**
+	 * Evaluates the right hand side of the Hodgkin Huxley equations
+	 * @param v
+	 * @param n
+	 * @param m
+	 * @param h
+	 * @param current injected current
+	 * @param parameters model constants
+	 * @param out receives dV/dt, dn/dt, dm/dt, dh/dt
+	 */
+	public static void derivatives(double v, double n, double m, double h, double current,
+			HodgkinHuxleyParameters parameters, double[] out) {
+		double I_Na = (Math.pow(m, 3) * parameters.getGbarNa() * h * (v - parameters.getENa()));
+		double I_K  = (Math.pow(n, 4) * parameters.getGbarK()  * (v - parameters.getEK()));
+		double I_L  = parameters.getGL() *(v - parameters.getEL());
+		out[0] = (current - I_K - I_Na - I_L)/parameters.getC();
+		out[1] = alphaN(v)*(1-n) - (betaN(v) * n);
+		out[2] = alphaM(v)*(1-m) - (betaM(v) * m);
+		out[3] = alphaH(v)*(1-h) - (betaH(v) * h);
+	}
+
+	/**
+	 * Copies another membrane state into this one
+	 * @param other
+	 */
+	public void copyFrom(MembraneState other) {
+		v = other.v;
+		n = other.n;
+		m = other.m;
+		h = other.h;
+	}
+
+	/* Below this distance from a removable singularity the rate is taken from its Taylor expansion */
+	private static final double SINGULARITY_WIDTH = 1e-6;
+
+	/**
+	 * Potassium activation rate. The formula is 0/0 at V = 10 mV, where its limit is 0.1.
+	 * @param v
+	 * @return
+	 */
+	public static double alphaN(double v) {
+		double x = (10-v)/10;
+		if(Math.abs(x) < SINGULARITY_WIDTH) {
+			return 0.1*(1 - x/2);
+		}
+		return 0.01*((10-v)/(Math.exp((10-v)/10) - 1));
+	}
+
+	public static double betaN(double v) {
+		return 0.125*Math.exp(-v/80);
+	}
+
+	/**
+	 * Sodium activation rate. The formula is 0/0 at V = 25 mV, where its limit is 1.
+	 * @param v
+	 * @return
+	 */
+	public static double alphaM(double v) {
+		double x = (25-v)/10;
+		if(Math.abs(x) < SINGULARITY_WIDTH) {
+			return 1 - x/2;
+		}
+		return 0.1*((25-v)/(Math.exp((25-v)/10) - 1));
+	}
+
+	public static double betaM(double v) {
+		return 4*Math.exp(-v/18);
+	}
+
+	public static double alphaH(double v) {
+		return 0.07*Math.exp(-v/20);
+	}
+
+	public static double betaH(double v) {
+		return 1/(Math.exp((30-v)/10) + 1);
+	}
+
+	public double getVoltage() {
+		return v;
+	}
+
+	public double getN() {
+		return n;
+	}
+
+	public double getM() {
+		return m;
+	}
+
+	public double getH() {
+		return h;
+	}
+
+	/**
+	 * Sets all four state variables at once
+	 * @param v
+	 * @param n
+	 * @param m
+	 * @param h
+	 */
+	public void set(double v, double n, double m, double h) {
+		this.v = v;
+		this.n = n;
+		this.m = m;
+		this.h = h;
+	}
+}
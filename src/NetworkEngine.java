@@ -0,0 +1,366 @@
+import java.util.Arrays;
+
+/**
+ * Simulates a whole neural cluster as flat state vectors. V, n, m, h of neuron id live at index id of
+ * contiguous double arrays and the synapses come from a NetworkTopology in CSR form, so a network costs
+ * a few dozen bytes per neuron instead of a graph of Neuron, Dendrite and AxonTerminal objects.
+ *
+ * Each time step first integrates every membrane, then every neuron gathers the spikes of its
+ * presynaptic neurons into an exponentially decaying synaptic current.
+ *
+ */
+public class NetworkEngine {
+
+	/* Voltage a membrane has to cross upwards to count as a spike, in mV above rest; the one SpikeRecorder uses */
+	public static final double SPIKE_THRESHOLD = SpikeRecorder.DEFAULT_THRESHOLD;
+
+	private final NetworkTopology topology;
+	private final NetworkTopology incoming;
+	private final HodgkinHuxleyParameters parameters;
+	private final int numNeurons;
+
+	private final double[] v;
+	private final double[] n;
+	private final double[] m;
+	private final double[] h;
+
+	private final double[] stimulus;
+	private final double[] synapticCurrent;
+	private final boolean[] spiked;
+	private final double[] firstSpikeTime;
+
+	private RateTable rateTable = null;
+	private SpikeRecorder spikeRecorder = null;
+	private TraceSink traceSink = TraceSink.NONE;
+	private int[] tracedNeurons = new int[0];
+	private int[] stimulatedNeurons = new int[0];
+	private Stimulus[] stimulusProtocols = new Stimulus[0];
+	private double synapticWeight = 20;
+	private double synapticTimeConstant = 2;
+	private double synapticDecay;
+	private double time = 0;
+	private int stepCount = 0;
+
+	/* Scratch buffer for rate table lookups, one per thread as ranges may be integrated concurrently */
+	private final ThreadLocal<double[]> rates = ThreadLocal.withInitial(() -> new double[6]);
+
+	/**
+	 * Allocates the state vectors for every neuron of the topology, all at rest
+	 * @param topology
+	 * @param parameters
+	 */
+	public NetworkEngine(NetworkTopology topology, HodgkinHuxleyParameters parameters) {
+		this.topology   = topology;
+		this.incoming   = topology.transpose();
+		this.parameters = parameters;
+		numNeurons = topology.getNumNeurons();
+
+		v = new double[numNeurons];
+		n = new double[numNeurons];
+		m = new double[numNeurons];
+		h = new double[numNeurons];
+		stimulus = new double[numNeurons];
+		synapticCurrent = new double[numNeurons];
+		spiked = new boolean[numNeurons];
+		firstSpikeTime = new double[numNeurons];
+
+		synapticDecay = Math.exp(-parameters.getTimeStep() / synapticTimeConstant);
+		MembraneState rest = new MembraneState();
+		for(int id = 0; id < numNeurons; id++) {
+			v[id] = rest.getVoltage();
+			n[id] = rest.getN();
+			m[id] = rest.getM();
+			h[id] = rest.getH();
+			firstSpikeTime[id] = Double.NaN;
+		}
+	}
+
+	/**
+	 * Returns every neuron to rest and the clock to 0 in place, keeping the topology, the stimuli and the settings.
+	 * Lets repeated trials reuse the state vectors instead of allocating a new engine.
+	 */
+	public void reset() {
+		MembraneState rest = new MembraneState();
+		Arrays.fill(v, rest.getVoltage());
+		Arrays.fill(n, rest.getN());
+		Arrays.fill(m, rest.getM());
+		Arrays.fill(h, rest.getH());
+		Arrays.fill(synapticCurrent, 0);
+		Arrays.fill(spiked, false);
+		Arrays.fill(firstSpikeTime, Double.NaN);
+		time = 0;
+		stepCount = 0;
+		if(spikeRecorder != null) {
+			spikeRecorder.clear();
+		}
+		for(int k = 0; k < stimulatedNeurons.length; k++) {
+			stimulus[stimulatedNeurons[k]] = stimulusProtocols[k].current(0, parameters.getTimeStep());
+		}
+	}
+
+	/**
+	 * Advances the whole network by one time step
+	 */
+	public void step() {
+		integrateRange(0, numNeurons);
+		gatherRange(0, numNeurons);
+		finishStep();
+	}
+
+	/**
+	 * Advances the whole network for a length of simulated time
+	 * @param duration in ms
+	 */
+	public void run(double duration) {
+		int steps = (int) Math.round(duration / parameters.getTimeStep());
+		for(int s = 0; s < steps; s++) {
+			step();
+		}
+	}
+
+	/**
+	 * Integrates the membranes of neurons [from, to) by one forward Euler step and flags the ones that spiked.
+	 * Only touches state owned by those neurons, so disjoint ranges may run concurrently.
+	 * @param from
+	 * @param to
+	 */
+	void integrateRange(int from, int to) {
+		double dt = parameters.getTimeStep();
+		double gbar_K = parameters.getGbarK();
+		double E_K = parameters.getEK();
+		double gbar_Na = parameters.getGbarNa();
+		double E_Na = parameters.getENa();
+		double g_L = parameters.getGL();
+		double E_L = parameters.getEL();
+		double C = parameters.getC();
+		double endTime = time + dt;
+		RateTable table = rateTable;
+		SpikeRecorder recorder = spikeRecorder;
+		double[] rates = table == null ? null : this.rates.get();
+
+		for(int id = from; id < to; id++) {
+			double local_v = v[id];
+			double local_n = n[id];
+			double local_m = m[id];
+			double local_h = h[id];
+
+			double local_alpha_n, local_beta_n, local_alpha_m, local_beta_m, local_alpha_h, local_beta_h;
+			if(table == null) {
+				local_alpha_n = MembraneState.alphaN(local_v);
+				local_beta_n  = MembraneState.betaN(local_v);
+				local_alpha_m = MembraneState.alphaM(local_v);
+				local_beta_m  = MembraneState.betaM(local_v);
+				local_alpha_h = MembraneState.alphaH(local_v);
+				local_beta_h  = MembraneState.betaH(local_v);
+			}
+			else {
+				table.lookup(local_v, rates);
+				local_alpha_n = rates[RateTable.ALPHA_N];
+				local_beta_n  = rates[RateTable.BETA_N];
+				local_alpha_m = rates[RateTable.ALPHA_M];
+				local_beta_m  = rates[RateTable.BETA_M];
+				local_alpha_h = rates[RateTable.ALPHA_H];
+				local_beta_h  = rates[RateTable.BETA_H];
+			}
+
+			double n2 = local_n * local_n;
+			double I_Na = local_m * local_m * local_m * gbar_Na * local_h * (local_v - E_Na);
+			double I_K  = n2 * n2 * gbar_K * (local_v - E_K);
+			double I_L  = g_L * (local_v - E_L);
+			double I_ion = stimulus[id] + synapticCurrent[id] - I_K - I_Na - I_L;
+
+			double next_v = local_v + dt*I_ion/C;
+			v[id] = next_v;
+			n[id] = local_n + dt*(local_alpha_n*(1-local_n) - (local_beta_n * local_n));
+			m[id] = local_m + dt*(local_alpha_m*(1-local_m) - (local_beta_m * local_m));
+			h[id] = local_h + dt*(local_alpha_h*(1-local_h) - (local_beta_h * local_h));
+
+			boolean crossed = local_v < SPIKE_THRESHOLD && next_v >= SPIKE_THRESHOLD;
+			spiked[id] = crossed;
+			if(recorder != null) {
+				recorder.detect(id, time, local_v, endTime, next_v);
+			}
+			if(crossed && firstSpikeTime[id] != firstSpikeTime[id]) {
+				//Interpolated crossing, timed the same way as SpikeRecorder
+				firstSpikeTime[id] = time + dt * (SPIKE_THRESHOLD - local_v) / (next_v - local_v);
+			}
+		}
+	}
+
+	/**
+	 * Decays the synaptic current of neurons [from, to) and adds one weight per presynaptic spike of this step.
+	 * Reads the spike flags of all neurons but only writes state owned by the range.
+	 * @param from
+	 * @param to
+	 */
+	void gatherRange(int from, int to) {
+		int[] inOffsets = incoming.getOffsets();
+		int[] sources = incoming.getTargets();
+		for(int id = from; id < to; id++) {
+			double current = synapticCurrent[id] * synapticDecay;
+			for(int edge = inOffsets[id]; edge < inOffsets[id + 1]; edge++) {
+				if(spiked[sources[edge]]) {
+					current += synapticWeight;
+				}
+			}
+			synapticCurrent[id] = current;
+		}
+	}
+
+	/**
+	 * Moves the clock forward once every range has been integrated and gathered
+	 */
+	void finishStep() {
+		stepCount++;
+		time = stepCount * parameters.getTimeStep();
+		for(int k = 0; k < stimulatedNeurons.length; k++) {
+			stimulus[stimulatedNeurons[k]] = stimulusProtocols[k].current(stepCount, parameters.getTimeStep());
+		}
+		if(traceSink != TraceSink.NONE) {
+			double gbar_K = parameters.getGbarK();
+			double gbar_Na = parameters.getGbarNa();
+			for(int id : tracedNeurons) {
+				double local_n2 = n[id] * n[id];
+				traceSink.sample(id, time, v[id], local_n2 * local_n2 * gbar_K, m[id] * m[id] * m[id] * gbar_Na * h[id]);
+			}
+		}
+	}
+
+	/**
+	 * Streams the state of selected neurons to a sink after every step. Samples are produced on the thread that
+	 * finishes the step, in the order of the ids given.
+	 * @param traceSink
+	 * @param neuronIds neurons to trace
+	 */
+	public void setTraceSink(TraceSink traceSink, int[] neuronIds) {
+		this.traceSink = traceSink;
+		this.tracedNeurons = neuronIds.clone();
+	}
+
+	/**
+	 * Injects a constant external current into a neuron until changed
+	 * @param id
+	 * @param current
+	 */
+	public void stimulate(int id, double current) {
+		stimulus[id] = current;
+	}
+
+	/**
+	 * Drives a neuron with a stimulus protocol evaluated at every step, replacing any earlier protocol for it
+	 * @param id
+	 * @param protocol
+	 */
+	public void stimulate(int id, Stimulus protocol) {
+		int k = 0;
+		while(k < stimulatedNeurons.length && stimulatedNeurons[k] != id) {
+			k++;
+		}
+		if(k == stimulatedNeurons.length) {
+			stimulatedNeurons = Arrays.copyOf(stimulatedNeurons, k + 1);
+			stimulusProtocols = Arrays.copyOf(stimulusProtocols, k + 1);
+			stimulatedNeurons[k] = id;
+		}
+		stimulusProtocols[k] = protocol;
+		stimulus[id] = protocol.current(stepCount, parameters.getTimeStep());
+	}
+
+	/**
+	 * Records every spike of every neuron, not only the first, into a recorder sized for this network; null to stop
+	 * @param spikeRecorder
+	 */
+	public void setSpikeRecorder(SpikeRecorder spikeRecorder) {
+		if(spikeRecorder != null && spikeRecorder.getNumNeurons() < numNeurons) {
+			throw new IllegalArgumentException("Recorder has fewer neurons than the network");
+		}
+		this.spikeRecorder = spikeRecorder;
+	}
+
+	public SpikeRecorder getSpikeRecorder() {
+		return spikeRecorder;
+	}
+
+	/**
+	 * Reads the gating rates from a shared lookup table instead of evaluating the exponentials, null for the exact formulas
+	 * @param rateTable
+	 */
+	public void setRateTable(RateTable rateTable) {
+		this.rateTable = rateTable;
+	}
+
+	/**
+	 * Sets the synaptic current added to a postsynaptic neuron per presynaptic spike
+	 * @param synapticWeight
+	 */
+	public void setSynapticWeight(double synapticWeight) {
+		this.synapticWeight = synapticWeight;
+	}
+
+	/**
+	 * Sets the decay time constant of the synaptic current in ms
+	 * @param synapticTimeConstant
+	 */
+	public void setSynapticTimeConstant(double synapticTimeConstant) {
+		this.synapticTimeConstant = synapticTimeConstant;
+		synapticDecay = Math.exp(-parameters.getTimeStep() / synapticTimeConstant);
+	}
+
+	/**
+	 * Returns the membrane voltage of a neuron
+	 * @param id
+	 * @return
+	 */
+	public double getVoltage(int id) {
+		return v[id];
+	}
+
+	/**
+	 * Returns the time of the first spike of a neuron in ms, the interpolated threshold crossing, or NaN if it has not spiked
+	 * @param id
+	 * @return
+	 */
+	public double getFirstSpikeTime(int id) {
+		return firstSpikeTime[id];
+	}
+
+	/**
+	 * Checks if a neuron spiked during the last step
+	 * @param id
+	 * @return
+	 */
+	public boolean hasSpiked(int id) {
+		return spiked[id];
+	}
+
+	/**
+	 * Returns the current simulated time in ms
+	 * @return
+	 */
+	public double getTime() {
+		return time;
+	}
+
+	/**
+	 * Returns the number of neurons simulated
+	 * @return
+	 */
+	public int getNumNeurons() {
+		return numNeurons;
+	}
+
+	/**
+	 * Returns the network being simulated
+	 * @return
+	 */
+	public NetworkTopology getTopology() {
+		return topology;
+	}
+
+	/**
+	 * Returns the parameters every neuron is integrated with
+	 * @return
+	 */
+	public HodgkinHuxleyParameters getParameters() {
+		return parameters;
+	}
+}
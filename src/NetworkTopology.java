@@ -0,0 +1,224 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Compact connectivity of a neural cluster. Neurons are dense int ids and the outgoing synapses
+ * of neuron id are targets[offsets[id]] .. targets[offsets[id+1]-1] (compressed sparse row form).
+ *
+ */
+public class NetworkTopology {
+
+	private final int numNeurons;
+	private final int[] offsets;
+	private final int[] targets;
+
+	/**
+	 * Wraps prebuilt CSR arrays
+	 * @param offsets numNeurons + 1 entries, offsets[0] == 0
+	 * @param targets target neuron id of every edge
+	 */
+	public NetworkTopology(int[] offsets, int[] targets) {
+		if(offsets.length == 0 || offsets[0] != 0 || offsets[offsets.length - 1] != targets.length) {
+			throw new IllegalArgumentException("Offsets do not describe the target array");
+		}
+		this.numNeurons = offsets.length - 1;
+		this.offsets = offsets;
+		this.targets = targets;
+	}
+
+	/**
+	 * Linear chain 0 -> 1 -> ... -> numNeurons-1, as wired by the linear drivers
+	 * @param numNeurons
+	 * @return
+	 */
+	public static NetworkTopology chain(int numNeurons) {
+		int[] offsets = new int[numNeurons + 1];
+		int[] targets = new int[Math.max(numNeurons - 1, 0)];
+		for(int id = 0; id < numNeurons; id++) {
+			offsets[id + 1] = offsets[id];
+			if(id < numNeurons - 1) {
+				targets[offsets[id + 1]++] = id + 1;
+			}
+		}
+		return new NetworkTopology(offsets, targets);
+	}
+
+	/**
+	 * P x P mesh with a synapse to the right and one downwards, as wired by NeuronMesh.
+	 * Neuron (i, j) has id i*P + j.
+	 * @param numNeuronsPerRow
+	 * @return
+	 */
+	public static NetworkTopology mesh(int numNeuronsPerRow) {
+		int p = numNeuronsPerRow;
+		int numNeurons = p * p;
+		int[] offsets = new int[numNeurons + 1];
+		int[] targets = new int[2 * p * (p - 1)];
+		int edge = 0;
+		for(int i = 0; i < p; i++) {
+			for(int j = 0; j < p; j++) {
+				if(j < p - 1) {
+					targets[edge++] = i * p + j + 1;
+				}
+				if(i < p - 1) {
+					targets[edge++] = (i + 1) * p + j;
+				}
+				offsets[i * p + j + 1] = edge;
+			}
+		}
+		return new NetworkTopology(offsets, targets);
+	}
+
+	/**
+	 * Builds a topology from a list of synapses. Self loops and repeated synapses are dropped and the targets of each
+	 * neuron are sorted, so the result does not depend on the order of the list. Built in parallel.
+	 * @param numNeurons
+	 * @param sources presynaptic neuron of every synapse
+	 * @param targets postsynaptic neuron of every synapse
+	 * @param undirected also add every synapse in the reverse direction
+	 * @return
+	 */
+	public static NetworkTopology fromEdges(int numNeurons, final int[] sources, final int[] targets, final boolean undirected) {
+		if(sources.length != targets.length) {
+			throw new IllegalArgumentException("Every synapse needs a source and a target");
+		}
+		final AtomicIntegerArray cursor = new AtomicIntegerArray(numNeurons + 1);
+		TopologyGenerators.parallel(sources.length, e -> {
+			cursor.incrementAndGet(sources[e] + 1);
+			if(undirected) {
+				cursor.incrementAndGet(targets[e] + 1);
+			}
+		});
+		final int[] rawOffsets = new int[numNeurons + 1];
+		for(int id = 1; id <= numNeurons; id++) {
+			rawOffsets[id] = cursor.get(id);
+		}
+		final int[] raw = new int[TopologyGenerators.prefixSum(rawOffsets)];
+		for(int id = 0; id < numNeurons; id++) {
+			cursor.set(id, rawOffsets[id]);
+		}
+		TopologyGenerators.parallel(sources.length, e -> {
+			raw[cursor.getAndIncrement(sources[e])] = targets[e];
+			if(undirected) {
+				raw[cursor.getAndIncrement(targets[e])] = sources[e];
+			}
+		});
+
+		//Sort every row, then keep the first copy of each target
+		final int[] offsets = new int[numNeurons + 1];
+		TopologyGenerators.parallel(numNeurons, id -> {
+			Arrays.sort(raw, rawOffsets[id], rawOffsets[id + 1]);
+			int unique = 0;
+			for(int k = rawOffsets[id]; k < rawOffsets[id + 1]; k++) {
+				if(raw[k] != id && (unique == 0 || raw[k] != raw[rawOffsets[id] + unique - 1])) {
+					raw[rawOffsets[id] + unique++] = raw[k];
+				}
+			}
+			offsets[id + 1] = unique;
+		});
+		final int[] compact = new int[TopologyGenerators.prefixSum(offsets)];
+		TopologyGenerators.parallel(numNeurons, id ->
+				System.arraycopy(raw, rawOffsets[id], compact, offsets[id], offsets[id + 1] - offsets[id]));
+		return new NetworkTopology(offsets, compact);
+	}
+
+	/**
+	 * Returns the topology of a NeuronMesh
+	 * @param mesh
+	 * @return
+	 */
+	public static NetworkTopology fromMesh(NeuronMesh mesh) {
+		return mesh.getTopology();
+	}
+
+	/**
+	 * Returns the same network with every edge reversed, i.e. the incoming synapses of each neuron
+	 * @return
+	 */
+	public NetworkTopology transpose() {
+		int[] inOffsets = new int[numNeurons + 1];
+		for(int edge = 0; edge < targets.length; edge++) {
+			inOffsets[targets[edge] + 1]++;
+		}
+		for(int id = 0; id < numNeurons; id++) {
+			inOffsets[id + 1] += inOffsets[id];
+		}
+		int[] fill = new int[numNeurons];
+		int[] sources = new int[targets.length];
+		for(int id = 0; id < numNeurons; id++) {
+			for(int edge = offsets[id]; edge < offsets[id + 1]; edge++) {
+				int target = targets[edge];
+				sources[inOffsets[target] + fill[target]++] = id;
+			}
+		}
+		return new NetworkTopology(inOffsets, sources);
+	}
+
+	/**
+	 * Returns the number of neurons
+	 * @return
+	 */
+	public int getNumNeurons() {
+		return numNeurons;
+	}
+
+	/**
+	 * Returns the number of synapses
+	 * @return
+	 */
+	public int getNumEdges() {
+		return targets.length;
+	}
+
+	/**
+	 * Returns the number of outgoing synapses of a neuron
+	 * @param id
+	 * @return
+	 */
+	public int getDegree(int id) {
+		return offsets[id + 1] - offsets[id];
+	}
+
+	/**
+	 * Returns the first edge index of a neuron
+	 * @param id
+	 * @return
+	 */
+	public int getEdgeStart(int id) {
+		return offsets[id];
+	}
+
+	/**
+	 * Returns one past the last edge index of a neuron
+	 * @param id
+	 * @return
+	 */
+	public int getEdgeEnd(int id) {
+		return offsets[id + 1];
+	}
+
+	/**
+	 * Returns the target neuron of an edge
+	 * @param edge
+	 * @return
+	 */
+	public int getTarget(int edge) {
+		return targets[edge];
+	}
+
+	/**
+	 * Returns the CSR offset array. Callers must not modify it.
+	 * @return
+	 */
+	public int[] getOffsets() {
+		return offsets;
+	}
+
+	/**
+	 * Returns the CSR target array. Callers must not modify it.
+	 * @return
+	 */
+	public int[] getTargets() {
+		return targets;
+	}
+}
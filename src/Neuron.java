@@ -1,7 +1,6 @@
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Handles the interaction between the dendrites and the axon termainals at the end of the axon.
@@ -13,42 +12,235 @@ public class Neuron {
 	private boolean visited;
 	private List<Dendrite> dendriteList;
 	private List<AxonTerminal> axonTerminalList;
+	private SynapticStore store;
+	private int dendriteStart;
+	private int numDendrites;
+	private int axonTerminalStart;
+	private int numAxonTerminals;
 	private int i;
 	private int j;
 	private double axonLength;
 	private int numDistanceFromSource;
 	
+	/* Length of simulated time each call to processHodgkinHuxley integrates, in ms */
+	public static final double PROCESSING_INTERVAL = 5.0;
+	
+	private HodgkinHuxleyParameters parameters = HodgkinHuxleyParameters.DEFAULT;
+	private MembraneState membrane = new MembraneState();
+	private MembraneIntegrator integrator = new ForwardEulerIntegrator();
+	private double simulatedTime = 0;
+	private TraceSink traceSink = TraceSink.NONE;
+	private int traceId = 0;
+	private final double[] synapticState = new double[2];
+	private SpikeRecorder spikeRecorder = null;
+	private int spikeId = 0;
+	
 	/**
 	 * Instantiates the dendrites and axon terminals present on the neuron
 	 * @param numDendrites
 	 * @param numAxonTerminals
 	 */
 	public Neuron(int numDendrites, int numAxonTerminals) {
-		axonLength 		 = (new Random()).nextDouble();
+		this(numDendrites, numAxonTerminals, RandomService.newStream());
+	}
+	
+	/**
+	 * Instantiates the dendrites and axon terminals present on the neuron, drawing the axon length from a given stream.
+	 * The neuron gets a store of its own sized to it, which suits a neuron used alone; networks share one store between
+	 * their neurons through Neuron(int, int, SynapticStore) so the state of all dendrites sits in the same arrays.
+	 * @param numDendrites
+	 * @param numAxonTerminals
+	 * @param random
+	 */
+	public Neuron(int numDendrites, int numAxonTerminals, SplittableRandom random) {
+		this(numDendrites, numAxonTerminals, random, new SynapticStore(numDendrites, numAxonTerminals));
+	}
+	
+	/**
+	 * Instantiates a neuron whose dendrites and axon terminals are ranges of a store shared with other neurons
+	 * @param numDendrites
+	 * @param numAxonTerminals
+	 * @param store
+	 */
+	public Neuron(int numDendrites, int numAxonTerminals, SynapticStore store) {
+		this(numDendrites, numAxonTerminals, RandomService.newStream(), store);
+	}
+	
+	private Neuron(int numDendrites, int numAxonTerminals, SplittableRandom random, SynapticStore store) {
+		axonLength 		 = random.nextDouble();
 		visited 		 = false;
-		dendriteList	 = new ArrayList<>();
-		axonTerminalList = new ArrayList<>();
+		this.store		 = store;
+		this.numDendrites = numDendrites;
+		this.numAxonTerminals = numAxonTerminals;
+		dendriteStart	 = store.allocateDendrites(numDendrites);
+		dendriteList	 = store.dendrites(dendriteStart, numDendrites);
+		axonTerminalStart = store.allocateAxonTerminals(numAxonTerminals);
+		axonTerminalList = store.axonTerminals(axonTerminalStart, numAxonTerminals);
 
 		numDistanceFromSource = 0;
-
-		for(int i = 0; i < numDendrites; i++) {
-			dendriteList.add(new Dendrite());
-		}
-		
-		for(int i = 0; i < numAxonTerminals; i++) {
-			axonTerminalList.add(new AxonTerminal());
-		}
-		
 	}
 	
 	public Neuron() { };
 	
 	/**
 	 * Simulates the HH signal propogation throughout the neuron and axon. Accounts for resistance.
+	 * Integrates the next PROCESSING_INTERVAL ms driven by the postsynaptic currents of the dendrites.
 	 */
 	public void processHodgkinHuxley() {
-		Hodgkin_Huxley_Simulation hxs = new Hodgkin_Huxley_Simulation();
-		hxs.runSimulation();
+		integrate(PROCESSING_INTERVAL);
+	}
+	
+	/**
+	 * Integrates the membrane forward driven by the postsynaptic currents of the dendrites, which decay as it goes.
+	 * The currents of all dendrites are summed once and the sum advanced in O(1) per step, then every dendrite
+	 * is brought to the end of the interval in one update.
+	 *
+	 * Steps follow the integrator's preferred step, so an adaptive integrator takes long steps between spikes and an
+	 * exponential Euler one keeps its large dt; each step is driven by the exact mean of the summed current over it.
+	 * @param duration length of the interval in ms
+	 */
+	public void integrate(double duration) {
+		if(store == null) {
+			advance(duration, 0);
+			return;
+		}
+		PostsynapticCurrent postsynapticCurrent = store.getPostsynapticCurrent();
+		synapticState[0] = 0;
+		synapticState[1] = 0;
+		store.sumCurrents(dendriteStart, numDendrites, synapticState);
+
+		double remaining = duration;
+		double t = simulatedTime;
+		double lastStep = Double.NaN;
+		double decay = 1;
+		while(remaining > 1e-12) {
+			double step = Math.min(integrator.getPreferredStep(parameters), remaining);
+			if(step != lastStep) {
+				decay = postsynapticCurrent.decayFactor(step);
+				lastStep = step;
+			}
+			double previousVoltage = membrane.getVoltage();
+			integrator.advance(membrane, parameters, postsynapticCurrent.meanCurrent(synapticState, step, decay), step);
+			postsynapticCurrent.advance(synapticState, step, decay);
+			if(spikeRecorder != null) {
+				spikeRecorder.detect(spikeId, t, previousVoltage, t + step, membrane.getVoltage());
+			}
+			t += step;
+			remaining -= step;
+		}
+		store.advanceCurrents(dendriteStart, numDendrites, duration);
+		simulatedTime += duration;
+		emitSample();
+	}
+	
+	/**
+	 * Integrates the membrane forward from its current state
+	 * @param dt length of the interval in ms
+	 * @param inputCurrent current injected over the whole interval
+	 */
+	public void advance(double dt, double inputCurrent) {
+		double previousVoltage = membrane.getVoltage();
+		integrator.advance(membrane, parameters, inputCurrent, dt);
+		if(spikeRecorder != null) {
+			spikeRecorder.detect(spikeId, simulatedTime, previousVoltage, simulatedTime + dt, membrane.getVoltage());
+		}
+		simulatedTime += dt;
+		emitSample();
+	}
+	
+	private void emitSample() {
+		if(traceSink != TraceSink.NONE) {
+			traceSink.sample(traceId, simulatedTime, membrane.getVoltage(),
+					Math.pow(membrane.getN(), 4)*parameters.getGbarK(),
+					Math.pow(membrane.getM(), 3)*parameters.getGbarNa()*membrane.getH());
+		}
+	}
+	
+	/**
+	 * Streams the membrane state at the end of every advance to a sink
+	 * @param traceSink
+	 * @param traceId id the samples are tagged with
+	 */
+	public void setTraceSink(TraceSink traceSink, int traceId) {
+		this.traceSink = traceSink;
+		this.traceId = traceId;
+	}
+	
+	/**
+	 * Detects spikes while integrating and records them under an id, against this neuron's simulated time
+	 * @param spikeRecorder null to stop
+	 * @param spikeId
+	 */
+	public void setSpikeRecorder(SpikeRecorder spikeRecorder, int spikeId) {
+		this.spikeRecorder = spikeRecorder;
+		this.spikeId = spikeId;
+	}
+	
+	/**
+	 * Sets the time course of the postsynaptic currents. Applies to every neuron sharing this neuron's store.
+	 * @param postsynapticCurrent
+	 */
+	public void setPostsynapticCurrent(PostsynapticCurrent postsynapticCurrent) {
+		store.setPostsynapticCurrent(postsynapticCurrent);
+	}
+	
+	/**
+	 * Sets the numerical scheme the membrane is integrated with, forward Euler at the parameter time step by default
+	 * @param integrator
+	 */
+	public void setIntegrator(MembraneIntegrator integrator) {
+		this.integrator = integrator;
+	}
+	
+	/**
+	 * Returns the summed postsynaptic current currently flowing in from all dendrites
+	 * @return
+	 */
+	public double getDendriticInput() {
+		if(store == null) {
+			return 0;
+		}
+		return store.sumCurrents(dendriteStart, numDendrites);
+	}
+	
+	/**
+	 * Returns the membrane voltage and gating variables of this neuron
+	 * @return
+	 */
+	public MembraneState getMembraneState() {
+		return membrane;
+	}
+	
+	/**
+	 * Returns the membrane voltage
+	 * @return
+	 */
+	public double getVoltage() {
+		return membrane.getVoltage();
+	}
+	
+	/**
+	 * Returns how much time this neuron has been integrated for, in ms
+	 * @return
+	 */
+	public double getSimulatedTime() {
+		return simulatedTime;
+	}
+	
+	/**
+	 * Returns the model constants used to integrate this neuron
+	 * @return
+	 */
+	public HodgkinHuxleyParameters getParameters() {
+		return parameters;
+	}
+	
+	/**
+	 * Sets the model constants used to integrate this neuron
+	 * @param parameters
+	 */
+	public void setParameters(HodgkinHuxleyParameters parameters) {
+		this.parameters = parameters;
 	}
 	/**
 	 * Returns the axon length
@@ -140,6 +332,24 @@ public class Neuron {
 		visited = true;
 	}
 	
+	/**
+	 * Returns the neuron to the state it was built in: unvisited, membrane at rest, no signal on the dendrites, axon
+	 * terminals with no signal and full vesicles, and no spikes in the attached recorder
+	 */
+	public void reset() {
+		visited = false;
+		numDistanceFromSource = 0;
+		membrane.reset();
+		simulatedTime = 0;
+		if(spikeRecorder != null) {
+			spikeRecorder.clear(spikeId);
+		}
+		if(store != null) {
+			store.resetDendrites(dendriteStart, numDendrites);
+			store.resetAxonTerminals(axonTerminalStart, numAxonTerminals);
+		}
+	}
+	
 	public void setMeshCoordinates(int i, int j) {
 		this.i = i;
 		this.j = j;
@@ -1,9 +1,10 @@
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.AbstractList;
 import java.util.List;
 
 /**
- * Creates a neural cluster with mesh topology
+ * Creates a neural cluster with mesh topology.
+ * Neuron (i, j) has the dense id i*P + j and its outgoing synapses and neighbors are stored edge by edge in the
+ * compressed sparse row order of a NetworkTopology, so looking them up is an index computation rather than a hash lookup.
  *
  */
 public class NeuronMesh {
@@ -11,21 +12,20 @@ public class NeuronMesh {
 	private int numNeuronsPerRow;
 	private int numDendrites;
 	private int numAxonTerminals;
-	private HashMap<Neuron, List<Neuron>> neighborMap;
-	private HashMap<Neuron, List<Synapse>> synapseMap;
 
-	private List<Neuron> neighborList;
 	private Neuron[][] neuronMesh;
-	private List<Synapse> synapseList;
+	private NetworkTopology topology;
+	private Synapse[] synapses;
+	private SynapticStore store;
 	
 	public NeuronMesh(int numNeuronsPerRow, int numDendrites, int numAxonTerminals) {
 		this.numNeuronsPerRow = numNeuronsPerRow;
 		this.numDendrites     = numDendrites;
 		this.numAxonTerminals = numAxonTerminals;
 		neuronMesh = new Neuron[numNeuronsPerRow][numNeuronsPerRow];
-		neighborMap = new HashMap<>();
-		synapseMap = new HashMap<>();
-
+		topology = NetworkTopology.mesh(numNeuronsPerRow);
+		synapses = new Synapse[topology.getNumEdges()];
+		store = new SynapticStore(topology.getNumNeurons() * 4, topology.getNumNeurons() * 8);
 	}
 	
 	/**
@@ -51,39 +51,77 @@ public class NeuronMesh {
 					numDendrites = 8;
 					numAxonTerminals = 4;
 				}
-				neuronMesh[i][j] = new Neuron(numDendrites, numAxonTerminals);
+				neuronMesh[i][j] = new Neuron(numDendrites, numAxonTerminals, store);
 				neuronMesh[i][j].setMeshCoordinates(i, j);
 			}
 		}
 		
-		Synapse currentSynapse = null;
+		//One synapse per topology edge: to the right first, then downwards
+		for(int id = 0; id < topology.getNumNeurons(); id++) {
+			Neuron neuron = getNeuron(id);
+			for(int edge = topology.getEdgeStart(id); edge < topology.getEdgeEnd(id); edge++) {
+				Synapse currentSynapse = new Synapse(neuron.getX(), neuron.getY());
+				currentSynapse.setAxonTerminalList(neuron.getAxonTerminalsAsList());
+				currentSynapse.setDendriteList(getNeuron(topology.getTarget(edge)).getDendritesAsList());
+				synapses[edge] = currentSynapse;
+			}
+		}
+		System.out.printf("Created %d x %d mesh: %d neurons, %d synapses\n", numNeuronsPerRow, numNeuronsPerRow,
+				topology.getNumNeurons(), synapses.length);
+		return neuronMesh;
+	}
+	
+	/**
+	 * Resets every neuron of the mesh in place so another trial can reuse it
+	 */
+	public void reset() {
 		for(int i = 0; i < neuronMesh.length; i++) {
 			for(int j = 0; j < neuronMesh.length; j++) {
-				neighborList = new ArrayList<>();
-				synapseList = new ArrayList<>();
-
-				if(j < neuronMesh.length - 1) {
-					currentSynapse = new Synapse(i,j);
-					currentSynapse.setAxonTerminalList(neuronMesh[i][j].getAxonTerminalsAsList());
-					currentSynapse.setDendriteList(neuronMesh[i][j+1].getDendritesAsList());
-					synapseList.add(currentSynapse);
-					neighborList.add(neuronMesh[i][j+1]);
-					System.out.printf("Created Synpase 1 at (%d, %d) -> (%d, %d)\n", currentSynapse.getSynapseID()[0], currentSynapse.getSynapseID()[1], i, j + 1);
-					
+				if(neuronMesh[i][j] != null) {
+					neuronMesh[i][j].reset();
 				}
-				if(i < neuronMesh.length - 1) {
-					currentSynapse = new Synapse(i,j);
-					currentSynapse.setAxonTerminalList(neuronMesh[i][j].getAxonTerminalsAsList());
-					currentSynapse.setDendriteList(neuronMesh[i+1][j].getDendritesAsList());
-					synapseList.add(currentSynapse);
-					neighborList.add(neuronMesh[i+1][j]);
-					System.out.printf("Created Synpase 2 at (%d, %d) -> (%d, %d)\n", currentSynapse.getSynapseID()[0], currentSynapse.getSynapseID()[1], i +1, j);
-				}
-				neighborMap.put(neuronMesh[i][j], neighborList);
-				synapseMap.put(neuronMesh[i][j], synapseList);
 			}
 		}
-		return neuronMesh;
+	}
+	
+	/**
+	 * Returns the number of neurons along each side of the mesh
+	 * @return
+	 */
+	public int getNumNeuronsPerRow() {
+		return numNeuronsPerRow;
+	}
+
+	/**
+	 * Returns the connectivity of the mesh, with neuron (i, j) at id i*P + j
+	 * @return
+	 */
+	public NetworkTopology getTopology() {
+		return topology;
+	}
+
+	/**
+	 * Returns the id of the neuron at an i, j coordinate
+	 * @param i
+	 * @param j
+	 * @return
+	 */
+	public int getId(int i, int j) {
+		return i * numNeuronsPerRow + j;
+	}
+
+	/**
+	 * Returns the id of a neuron of this mesh
+	 * @param neuron
+	 * @return id, or -1 if the neuron is not part of this mesh
+	 */
+	public int getId(Neuron neuron) {
+		int i = neuron.getX();
+		int j = neuron.getY();
+		if(i < 0 || i >= numNeuronsPerRow || j < 0 || j >= numNeuronsPerRow || neuronMesh[i][j] != neuron) {
+			return -1;
+		}
+		return getId(i, j);
 	}
 	
 	/**
@@ -95,22 +133,118 @@ public class NeuronMesh {
 	public Neuron getNeuron(int i, int j) {
 		return neuronMesh[i][j];
 	}
+
+	/**
+	 * Returns the neuron with an id
+	 * @param id
+	 * @return
+	 */
+	public Neuron getNeuron(int id) {
+		return neuronMesh[id / numNeuronsPerRow][id % numNeuronsPerRow];
+	}
+
+	/**
+	 * Returns the synapse of a topology edge
+	 * @param edge
+	 * @return
+	 */
+	public Synapse getSynapse(int edge) {
+		return synapses[edge];
+	}
+
+	/**
+	 * Gets the outgoing synapses of a neuron, in the same order as its neighbors
+	 * @param id
+	 * @return read only view
+	 */
+	public List<Synapse> getSynapses(int id) {
+		return new SynapseList(synapses, topology.getEdgeStart(id), topology.getEdgeEnd(id));
+	}
+
+	/**
+	 * Gets the neighbors a neuron has synapses to
+	 * @param id
+	 * @return read only view
+	 */
+	public List<Neuron> getNeighbors(int id) {
+		return new NeighborList(this, topology.getEdgeStart(id), topology.getEdgeEnd(id));
+	}
 	
 	/**
 	 * Gets the list of synapses associated with that neuron
 	 * @param neuron
-	 * @return
+	 * @return read only view, or null if the neuron is not part of this mesh
 	 */
 	public List<Synapse> getSynapses(Neuron neuron) {
-		return synapseMap.get(neuron);
+		int id = getId(neuron);
+		return id < 0 ? null : getSynapses(id);
 	}
 	
 	/**
 	 * Gets the list of neighbors associated with that neuron.
 	 * @param neuron
-	 * @return
+	 * @return read only view, or null if the neuron is not part of this mesh
 	 */
 	public List<Neuron> getNeighbors(Neuron neuron) {
-		return neighborMap.get(neuron);
+		int id = getId(neuron);
+		return id < 0 ? null : getNeighbors(id);
+	}
+
+	/**
+	 * Read only list over the synapses of edges [start, end)
+	 *
+	 */
+	private static class SynapseList extends AbstractList<Synapse> {
+		private final Synapse[] synapses;
+		private final int start;
+		private final int end;
+
+		SynapseList(Synapse[] synapses, int start, int end) {
+			this.synapses = synapses;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public Synapse get(int index) {
+			if(index < 0 || index >= end - start) {
+				throw new IndexOutOfBoundsException("Edge " + index + " of " + (end - start));
+			}
+			return synapses[start + index];
+		}
+
+		@Override
+		public int size() {
+			return end - start;
+		}
+	}
+
+	/**
+	 * Read only list over the neurons targeted by edges [start, end)
+	 *
+	 */
+	private static class NeighborList extends AbstractList<Neuron> {
+		private final NeuronMesh mesh;
+		private final int start;
+		private final int end;
+
+		NeighborList(NeuronMesh mesh, int start, int end) {
+			this.mesh = mesh;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public Neuron get(int index) {
+			if(index < 0 || index >= end - start) {
+				throw new IndexOutOfBoundsException("Edge " + index + " of " + (end - start));
+			}
+			return mesh.getNeuron(mesh.topology.getTarget(start + index));
+		}
+
+		@Override
+		public int size() {
+			return end - start;
+		}
 	}
 }
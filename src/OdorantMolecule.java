@@ -1,12 +1,16 @@
-import java.util.Random;
+import java.util.SplittableRandom;
 
 
 public class OdorantMolecule {
 
-	private Random randGenerator;
+	private SplittableRandom randGenerator;
 	
 	public OdorantMolecule(){
-		randGenerator = new Random();
+		this(RandomService.newStream());
+	}
+	
+	public OdorantMolecule(SplittableRandom randGenerator){
+		this.randGenerator = randGenerator;
 	}
 	
 	public int getStrength(){
@@ -4,7 +4,7 @@ import java.util.List;
 /**
  * Creates an OlfactoryReceptor that handles olfactory (smell) stimuli
  */
-public class OlfactoryReceptor {
+public class OlfactoryReceptor implements SensoryInput {
 	
 	private Mucus mucus;
 	private SodiumChannel sodiumChannel;
@@ -33,6 +33,7 @@ public class OlfactoryReceptor {
 	/**
 	 * Processes the signal
 	 */
+	@Override
 	public void process(){
 		mucus.putMoleculeInCilia();
 		if(mucus.isCAMPActivated()) {
@@ -51,6 +52,7 @@ public class OlfactoryReceptor {
 	 * @param index
 	 * @return
 	 */
+	@Override
 	public List<AxonTerminal> getAxonTerminalsAsList() {
 		return axonTerminalList;
 	}
@@ -0,0 +1,167 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Time-stepped runner that splits the neurons of a NetworkEngine into partitions and integrates them on a ForkJoinPool.
+ * Every step runs in two phases separated by a barrier: all partitions integrate their membranes, then all
+ * partitions gather the spikes of that step as synaptic input. A partition only writes its own neurons and only
+ * reads state finished in the previous phase, so results are identical for any number of threads.
+ *
+ */
+public class ParallelMeshRunner {
+
+	private static final int NUM_NEURONS_PER_ROW = 50;
+	private static final double SIMULATION_TIME = 110;
+	private static final double STIMULUS_CURRENT = 10;
+
+	private final NetworkEngine engine;
+	private final ForkJoinPool pool;
+	private final int[] bounds;
+
+	/**
+	 * Creates a runner over contiguous id ranges
+	 * @param engine network to step
+	 * @param bounds partition p covers ids bounds[p] .. bounds[p+1]-1
+	 * @param pool threads to integrate on
+	 */
+	public ParallelMeshRunner(NetworkEngine engine, int[] bounds, ForkJoinPool pool) {
+		if(bounds[0] != 0 || bounds[bounds.length - 1] != engine.getNumNeurons()) {
+			throw new IllegalArgumentException("Partitions must cover every neuron");
+		}
+		this.engine = engine;
+		this.bounds = bounds;
+		this.pool   = pool;
+	}
+
+	/**
+	 * Partitions a P x P mesh (ids i*P + j) into bands of whole rows
+	 * @param numNeuronsPerRow
+	 * @param numBands
+	 * @return
+	 */
+	public static int[] rowBands(int numNeuronsPerRow, int numBands) {
+		numBands = Math.max(1, Math.min(numBands, numNeuronsPerRow));
+		int[] bounds = new int[numBands + 1];
+		for(int band = 0; band <= numBands; band++) {
+			int row = (int) ((long) numNeuronsPerRow * band / numBands);
+			bounds[band] = row * numNeuronsPerRow;
+		}
+		return bounds;
+	}
+
+	/**
+	 * Partitions ids 0 .. numNeurons-1 into equally sized contiguous ranges
+	 * @param numNeurons
+	 * @param numPartitions
+	 * @return
+	 */
+	public static int[] evenPartitions(int numNeurons, int numPartitions) {
+		numPartitions = Math.max(1, Math.min(numPartitions, numNeurons));
+		int[] bounds = new int[numPartitions + 1];
+		for(int p = 0; p <= numPartitions; p++) {
+			bounds[p] = (int) ((long) numNeurons * p / numPartitions);
+		}
+		return bounds;
+	}
+
+	/**
+	 * Advances the network by one time step on all partitions
+	 */
+	public void step() {
+		pool.invoke(new PhaseTask(true, 0, bounds.length - 1));
+		pool.invoke(new PhaseTask(false, 0, bounds.length - 1));
+		engine.finishStep();
+	}
+
+	/**
+	 * Advances the network for a length of simulated time
+	 * @param duration in ms
+	 */
+	public void run(double duration) {
+		int steps = (int) Math.round(duration / engine.getParameters().getTimeStep());
+		for(int s = 0; s < steps; s++) {
+			step();
+		}
+	}
+
+	/**
+	 * Returns the network being stepped
+	 * @return
+	 */
+	public NetworkEngine getEngine() {
+		return engine;
+	}
+
+	/**
+	 * Runs one phase of a step over partitions [first, last), splitting in half until a single partition remains
+	 *
+	 */
+	private class PhaseTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final boolean integrate;
+		private final int first;
+		private final int last;
+
+		public PhaseTask(boolean integrate, int first, int last) {
+			this.integrate = integrate;
+			this.first = first;
+			this.last  = last;
+		}
+
+		@Override
+		protected void compute() {
+			if(last - first == 1) {
+				if(integrate) {
+					engine.integrateRange(bounds[first], bounds[last]);
+				}
+				else {
+					engine.gatherRange(bounds[first], bounds[last]);
+				}
+				return;
+			}
+			int mid = (first + last) >>> 1;
+			invokeAll(new PhaseTask(integrate, first, mid), new PhaseTask(integrate, mid, last));
+		}
+	}
+
+	/**
+	 * Stimulates the corner of a P x P mesh and steps it on every available core, long enough for the signal to cross
+	 * to the opposite corner at roughly one ms per hop
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		int threads = Runtime.getRuntime().availableProcessors();
+		NetworkEngine engine = new NetworkEngine(NetworkTopology.mesh(NUM_NEURONS_PER_ROW), HodgkinHuxleyParameters.DEFAULT);
+		engine.stimulate(0, STIMULUS_CURRENT);
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		ParallelMeshRunner runner = new ParallelMeshRunner(engine, rowBands(NUM_NEURONS_PER_ROW, threads * 4), pool);
+
+		long startSimulation = System.nanoTime();
+		runner.run(SIMULATION_TIME);
+		long displacement = System.nanoTime() - startSimulation;
+		pool.shutdown();
+
+		int lastNeuron = engine.getNumNeurons() - 1;
+		int farthest = 0;
+		int reached = 0;
+		for(int id = 0; id < engine.getNumNeurons(); id++) {
+			double spikeTime = engine.getFirstSpikeTime(id);
+			if(spikeTime == spikeTime) {
+				reached++;
+				if(!(spikeTime <= engine.getFirstSpikeTime(farthest))) {
+					farthest = id;
+				}
+			}
+		}
+		System.out.println("Threads: " + threads);
+		System.out.println("Simulated Time: " + engine.getTime() + " ms");
+		System.out.println("Neurons Reached: " + reached + " of " + engine.getNumNeurons());
+		System.out.printf("Last Neuron Reached: (%d, %d) at %.3f ms\n", farthest / NUM_NEURONS_PER_ROW,
+				farthest % NUM_NEURONS_PER_ROW, engine.getFirstSpikeTime(farthest));
+		System.out.println("First Spike of Last Neuron: " + engine.getFirstSpikeTime(lastNeuron) + " ms");
+		System.out.printf("Total Simulation Time: %.3f s\n", displacement / 1e9);
+	}
+}
@@ -1,20 +1,30 @@
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Handles light stimuli from the environment
  *
  */
-public class PhotoReceptor {
+public class PhotoReceptor implements SensoryInput {
 	
 	private OuterSegment outerSegment;
 	private InnerSegment innerSegment;
 	private SynapticBody synapticBody;
 	
 	public PhotoReceptor(int photons, int numAxonTerminals){
+		this(photons, numAxonTerminals, RandomService.newStream());
+	}
+	
+	/**
+	 * Creates a photoreceptor whose transducin production draws from a given random stream
+	 * @param photons
+	 * @param numAxonTerminals
+	 * @param random
+	 */
+	public PhotoReceptor(int photons, int numAxonTerminals, SplittableRandom random){
 		outerSegment = new OuterSegment(photons);
-		innerSegment = new InnerSegment();
+		innerSegment = new InnerSegment(random);
 		synapticBody = new SynapticBody(numAxonTerminals);
 	}
 	/**
@@ -35,6 +45,7 @@ public class PhotoReceptor {
 	/**
 	 * Processes the signal and sets the signals within the synaptic body
 	 */
+	@Override
 	public void process() {
 		if(outerSegment.wasLightDetected() == true){
 			innerSegment.triggerCis11();
@@ -48,6 +59,11 @@ public class PhotoReceptor {
 	public List<AxonTerminal> getAxonTerminalAsList(){
 		return synapticBody.getAxonTerminalAsList();
 	}
+
+	@Override
+	public List<AxonTerminal> getAxonTerminalsAsList() {
+		return getAxonTerminalAsList();
+	}
 	
 	public AxonTerminal getAxonTerminal(int index) {
 		return synapticBody.getAxonTerminal(index);
@@ -95,8 +111,8 @@ public class PhotoReceptor {
 		/**
 		 * Creates an instance of transducin - the molecule that is transmitted during signal propogation
 		 */
-		public InnerSegment(){
-			transducin = new Transducin();
+		public InnerSegment(SplittableRandom random){
+			transducin = new Transducin(random);
 		}
 		
 		/**
@@ -190,9 +206,13 @@ public class PhotoReceptor {
 	private class Transducin {
 		
 		private int transducin = 50;
+		private SplittableRandom random;
+		
+		public Transducin(SplittableRandom random){
+			this.random = random;
+		}
 	
 		public int getTransducin(){
-			Random random = new Random();
 			return (transducin + random.nextInt(100));  //at least 50 
 		}
 	}
@@ -0,0 +1,102 @@
+/**
+ * Time course of the current a synaptic release injects into a dendrite.
+ * An exponential current jumps by the released amplitude and decays with the time constant; an alpha current rises
+ * from zero and peaks after one time constant at amplitude/e, carrying the same total charge amplitude * tau.
+ *
+ * Both are kept as a pair of state variables per dendrite, a rise term and the current itself, which advance exactly
+ * over any interval in O(1), so no release history is kept. Releases into the dendrites of one neuron add up linearly.
+ * Instances are immutable and shared.
+ *
+ */
+public final class PostsynapticCurrent {
+
+	public static final int EXPONENTIAL = 0;
+	public static final int ALPHA = 1;
+
+	/* Exponential decay with the 2 ms time constant NetworkEngine uses */
+	public static final PostsynapticCurrent DEFAULT = new PostsynapticCurrent(EXPONENTIAL, 2);
+
+	private final int shape;
+	private final double timeConstant;
+
+	/**
+	 * @param shape EXPONENTIAL or ALPHA
+	 * @param timeConstant in ms
+	 */
+	public PostsynapticCurrent(int shape, double timeConstant) {
+		if(shape != EXPONENTIAL && shape != ALPHA) {
+			throw new IllegalArgumentException("Unknown postsynaptic current shape: " + shape);
+		}
+		if(!(timeConstant > 0)) {
+			throw new IllegalArgumentException("Time constant must be positive");
+		}
+		this.shape = shape;
+		this.timeConstant = timeConstant;
+	}
+
+	/**
+	 * Adds a release to the state of a dendrite
+	 * @param state rise term at index 0, current at index 1
+	 * @param amplitude
+	 */
+	public void release(double[] state, double amplitude) {
+		if(shape == EXPONENTIAL) {
+			state[1] += amplitude;
+		}
+		else {
+			state[0] += amplitude;
+		}
+	}
+
+	/**
+	 * Advances a state over an interval with no releases
+	 * @param state rise term at index 0, current at index 1
+	 * @param dt in ms
+	 */
+	public void advance(double[] state, double dt) {
+		double decay = Math.exp(-dt / timeConstant);
+		advance(state, dt, decay);
+	}
+
+	/**
+	 * Advances a state over an interval with no releases, given decayFactor(dt)
+	 * @param state rise term at index 0, current at index 1
+	 * @param dt in ms
+	 * @param decay
+	 */
+	public void advance(double[] state, double dt, double decay) {
+		//The rise term feeds the current at rate 1/tau; both decay at the same rate, so the pair solves exactly
+		state[1] = (state[1] + state[0] * dt / timeConstant) * decay;
+		state[0] *= decay;
+	}
+
+	/**
+	 * Returns the mean current of a state over an interval with no releases, the integral of the closed form divided by
+	 * the length
+	 * @param state rise term at index 0, current at index 1
+	 * @param dt in ms, positive
+	 * @param decay decayFactor(dt)
+	 * @return
+	 */
+	public double meanCurrent(double[] state, double dt, double decay) {
+		double charge = (state[0] + state[1]) * timeConstant * (1 - decay) - state[0] * dt * decay;
+		return charge / dt;
+	}
+
+	/**
+	 * Returns how much the state decays over an interval
+	 * @param dt in ms
+	 * @return
+	 */
+	public double decayFactor(double dt) {
+		return Math.exp(-dt / timeConstant);
+	}
+
+	public int getShape() {
+		return shape;
+	}
+
+	public double getTimeConstant() {
+		return timeConstant;
+	}
+}
@@ -0,0 +1,270 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Propagates a signal through a network of Neuron and Synapse objects wired after any NetworkTopology.
+ * Neuron id holds the Hodgkin Huxley state and synapse e connects the source of topology edge e to its target.
+ * Starting from a source neuron the signal spreads breadth first: a neuron runs its Hodgkin Huxley model once when its
+ * level is reached, then the signal passes through every synapse into the neurons of the next level.
+ *
+ * The engine counts what it does, so runs over different inputs and topologies can be compared.
+ *
+ */
+public class PropagationEngine {
+
+	/* Neurons a task handles before it stops splitting */
+	private static final int TASK_SIZE = 64;
+
+	private final NetworkTopology topology;
+	private final Neuron[] neurons;
+	private final Synapse[] synapses;
+	private final long setupNanos;
+
+	/* Incoming synapses: for neuron id, inSources/inEdges[inOffsets[id] .. inOffsets[id+1]-1] are the presynaptic
+	 * neurons and the index of the synapse from each */
+	private final int[] inOffsets;
+	private final int[] inSources;
+	private final int[] inEdges;
+
+	private final LevelFrontier frontier;
+	private final int[] levels;
+	private final AtomicInteger synapseCount = new AtomicInteger();
+
+	private int neuronsActivated = 0;
+	private int maxQueueLength = 0;
+	private int numLevels = 0;
+	private int activeLevel = 0;
+	private long propagationNanos = 0;
+
+	/**
+	 * Creates a neuron per topology neuron and a synapse per topology edge
+	 * @param topology
+	 * @param numDendrites dendrites per neuron
+	 * @param numAxonTerminals axon terminals per neuron
+	 */
+	public PropagationEngine(NetworkTopology topology, int numDendrites, int numAxonTerminals) {
+		long start = System.nanoTime();
+		this.topology = topology;
+		neurons = new Neuron[topology.getNumNeurons()];
+		synapses = new Synapse[topology.getNumEdges()];
+		SynapticStore store = new SynapticStore(neurons.length * numDendrites, neurons.length * numAxonTerminals);
+		for(int id = 0; id < neurons.length; id++) {
+			neurons[id] = new Neuron(numDendrites, numAxonTerminals, store);
+		}
+		for(int id = 0; id < neurons.length; id++) {
+			for(int edge = topology.getEdgeStart(id); edge < topology.getEdgeEnd(id); edge++) {
+				Synapse aSynapse = new Synapse();
+				aSynapse.setAxonTerminalList(neurons[id].getAxonTerminalsAsList());
+				aSynapse.setDendriteList(neurons[topology.getTarget(edge)].getDendritesAsList());
+				synapses[edge] = aSynapse;
+			}
+		}
+
+		int[] offsets = topology.getOffsets();
+		int[] targets = topology.getTargets();
+		inOffsets = new int[neurons.length + 1];
+		for(int edge = 0; edge < targets.length; edge++) {
+			inOffsets[targets[edge] + 1]++;
+		}
+		for(int id = 0; id < neurons.length; id++) {
+			inOffsets[id + 1] += inOffsets[id];
+		}
+		inSources = new int[targets.length];
+		inEdges = new int[targets.length];
+		int[] fill = new int[neurons.length];
+		for(int id = 0; id < neurons.length; id++) {
+			for(int edge = offsets[id]; edge < offsets[id + 1]; edge++) {
+				int in = inOffsets[targets[edge]] + fill[targets[edge]]++;
+				inSources[in] = id;
+				inEdges[in] = edge;
+			}
+		}
+
+		frontier = new LevelFrontier(neurons.length);
+		levels = new int[neurons.length];
+		Arrays.fill(levels, -1);
+		setupNanos = System.nanoTime() - start;
+	}
+
+	/**
+	 * Processes a sensory input and passes its signal to the dendrites of a neuron through a single use synapse
+	 * @param input
+	 * @param id neuron receiving the input
+	 */
+	public void connectInput(SensoryInput input, int id) {
+		input.process();
+		Synapse inputSynapse = new Synapse(-1, -1);
+		inputSynapse.setAxonTerminalList(input.getAxonTerminalsAsList());
+		inputSynapse.setDendriteList(neurons[id].getDendritesAsList());
+		inputSynapse.process();
+
+		//Kill cell
+		inputSynapse.setActive(false);
+	}
+
+	/**
+	 * Spreads the signal from a source neuron to every neuron it can reach, one breadth first level at a time.
+	 * All neurons of a level run their Hodgkin Huxley model in parallel and claim their unvisited neighbors in an atomic
+	 * bitset, so every neuron joins exactly one level and is activated exactly once. Each claimed neuron then pulls the
+	 * signal through its synapses from the level just activated; as only that neuron's task writes its dendrites, the
+	 * result does not depend on the number of threads.
+	 * @param sourceId
+	 */
+	public void propagate(int sourceId) {
+		long start = System.nanoTime();
+		if(frontier.claimCurrent(sourceId)) {
+			levels[sourceId] = 0;
+			activeLevel = 0;
+			while(frontier.size() > 0) {
+				int frontierSize = frontier.size();
+				frontier.forEach(0, frontierSize, TASK_SIZE, this::activateRange);
+				neuronsActivated += frontierSize;
+				maxQueueLength = Math.max(maxQueueLength, frontierSize);
+				numLevels++;
+
+				frontier.forEach(0, frontier.nextSize(), TASK_SIZE, this::receiveRange);
+				activeLevel++;
+				frontier.advance();
+			}
+		}
+		propagationNanos += System.nanoTime() - start;
+	}
+
+	/**
+	 * Returns every neuron and the statistics to their initial state so another trial can reuse the network.
+	 * Costs one pass over the neurons, which also clears their ranges of the store, and no allocation.
+	 */
+	public void reset() {
+		frontier.clear();
+		Arrays.fill(levels, -1);
+		for(int id = 0; id < neurons.length; id++) {
+			neurons[id].reset();
+		}
+		synapseCount.set(0);
+		neuronsActivated = 0;
+		maxQueueLength = 0;
+		numLevels = 0;
+		propagationNanos = 0;
+	}
+
+	/**
+	 * Activates frontier neurons [from, to) and claims their unvisited neighbors into the next frontier
+	 * @param from
+	 * @param to
+	 */
+	private void activateRange(int from, int to) {
+		int[] offsets = topology.getOffsets();
+		int[] targets = topology.getTargets();
+		int[] current = frontier.current();
+		int level = activeLevel;
+		for(int k = from; k < to; k++) {
+			int id = current[k];
+			neurons[id].processHodgkinHuxley();
+			neurons[id].setVisited();
+			for(int edge = offsets[id]; edge < offsets[id + 1]; edge++) {
+				int target = targets[edge];
+				if(frontier.claimNext(target)) {
+					levels[target] = level + 1;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Passes the signal to newly claimed neurons [from, to) through every synapse from the level activated last
+	 * @param from
+	 * @param to
+	 */
+	private void receiveRange(int from, int to) {
+		int[] claimed = frontier.next();
+		int processed = 0;
+		for(int k = from; k < to; k++) {
+			int id = claimed[k];
+			for(int in = inOffsets[id]; in < inOffsets[id + 1]; in++) {
+				if(levels[inSources[in]] == levels[id] - 1) {
+					synapses[inEdges[in]].process();
+					processed++;
+				}
+			}
+		}
+		synapseCount.addAndGet(processed);
+	}
+
+	/**
+	 * Runs the levels on another pool than the common ForkJoin pool
+	 * @param pool
+	 */
+	public void setPool(ForkJoinPool pool) {
+		frontier.setPool(pool);
+	}
+
+	/**
+	 * Returns the breadth first level a neuron was reached at, 0 for the source and -1 if it was not reached
+	 * @param id
+	 * @return
+	 */
+	public int getLevel(int id) {
+		return levels[id];
+	}
+
+	/**
+	 * Returns the number of levels the last propagations took
+	 * @return
+	 */
+	public int getNumLevels() {
+		return numLevels;
+	}
+
+	public NetworkTopology getTopology() {
+		return topology;
+	}
+
+	public Neuron getNeuron(int id) {
+		return neurons[id];
+	}
+
+	public Synapse getSynapse(int edge) {
+		return synapses[edge];
+	}
+
+	/**
+	 * Returns the number of neurons that ran their Hodgkin Huxley model
+	 * @return
+	 */
+	public int getNeuronsActivated() {
+		return neuronsActivated;
+	}
+
+	/**
+	 * Returns the number of synapses that passed a signal
+	 * @return
+	 */
+	public int getSynapsesProcessed() {
+		return synapseCount.get();
+	}
+
+	/**
+	 * Returns the largest number of neurons activated in one level
+	 * @return
+	 */
+	public int getMaxQueueLength() {
+		return maxQueueLength;
+	}
+
+	/**
+	 * Returns the time spent building the neurons and synapses in ns
+	 * @return
+	 */
+	public long getSetupNanos() {
+		return setupNanos;
+	}
+
+	/**
+	 * Returns the time spent propagating in ns
+	 * @return
+	 */
+	public long getPropagationNanos() {
+		return propagationNanos;
+	}
+}
@@ -0,0 +1,91 @@
+import java.util.SplittableRandom;
+
+/**
+ * Central source of randomness for the model.
+ * Every random stream is derived from one global seed, so a run can be repeated exactly by reusing the seed reported by
+ * getSeed(). The seed is read from the neuron.seed system property when present.
+ *
+ * Objects take their own stream from newStream() when they are built, which is repeatable as long as the network is built
+ * in the same order. Work split across threads should use stream(id) with a stable id (a partition or neuron id) so the
+ * numbers do not depend on scheduling.
+ *
+ */
+public final class RandomService {
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private static long seed;
+	private static SplittableRandom root;
+
+	static {
+		String property = System.getProperty("neuron.seed");
+		setSeed(property != null ? Long.parseLong(property) : System.nanoTime());
+	}
+
+	private RandomService() { }
+
+	/**
+	 * Restarts every stream handed out from now on from a new global seed
+	 * @param newSeed
+	 */
+	public static synchronized void setSeed(long newSeed) {
+		seed = newSeed;
+		root = new SplittableRandom(newSeed);
+	}
+
+	/**
+	 * Returns the global seed of this run
+	 * @return
+	 */
+	public static synchronized long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Returns the next independent stream split from the global seed
+	 * @return
+	 */
+	public static synchronized SplittableRandom newStream() {
+		return root.split();
+	}
+
+	/**
+	 * Returns a stream that depends only on the global seed and an id
+	 * @param id
+	 * @return
+	 */
+	public static synchronized SplittableRandom stream(long id) {
+		return stream(seed, id);
+	}
+
+	/**
+	 * Returns a stream that depends only on a given seed and an id, for generators seeded independently of the run
+	 * @param seed
+	 * @param id
+	 * @return
+	 */
+	public static SplittableRandom stream(long seed, long id) {
+		return new SplittableRandom(hash(seed, id));
+	}
+
+	/**
+	 * Hashes a seed and an id into 64 well mixed bits, a stateless random value that needs no generator
+	 * @param seed
+	 * @param id
+	 * @return
+	 */
+	public static long hash(long seed, long id) {
+		return mix64(seed + (id + 1) * GOLDEN_GAMMA);
+	}
+
+	/**
+	 * SplitMix64 finalizer, spreads neighbouring ids over the whole seed space
+	 * @param z
+	 * @return
+	 */
+	public static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,138 @@
+/**
+ * Voltage indexed lookup table of the six gating rates (alpha and beta of n, m, h).
+ * Rates are sampled on a regular voltage grid when the table is built and read back with linear interpolation, which
+ * replaces six Math.exp calls per neuron per step by one index computation. Voltages outside the table fall back to the
+ * exact formulas. A table is immutable once built and can be shared by every neuron and thread.
+ *
+ */
+public final class RateTable {
+
+	public static final int ALPHA_N = 0;
+	public static final int BETA_N  = 1;
+	public static final int ALPHA_M = 2;
+	public static final int BETA_M  = 3;
+	public static final int ALPHA_H = 4;
+	public static final int BETA_H  = 5;
+	private static final int NUM_RATES = 6;
+
+	/* -100 to 150 mV around rest at 0.01 mV resolution */
+	public static final RateTable DEFAULT = new RateTable(-100, 150, 0.01);
+
+	private final double minVoltage;
+	private final double maxVoltage;
+	private final double resolution;
+	private final double inverseResolution;
+	private final int numPoints;
+
+	/* Rates of grid point i are stored at 6*i .. 6*i+5 so one lookup touches one cache line or two */
+	private final double[] rates;
+
+	/**
+	 * Samples the rates on a voltage grid
+	 * @param minVoltage lowest tabulated voltage in mV
+	 * @param maxVoltage highest tabulated voltage in mV
+	 * @param resolution grid spacing in mV
+	 */
+	public RateTable(double minVoltage, double maxVoltage, double resolution) {
+		if(!(maxVoltage > minVoltage) || !(resolution > 0)) {
+			throw new IllegalArgumentException("Table needs a non-empty voltage range and a positive resolution");
+		}
+		this.minVoltage = minVoltage;
+		this.resolution = resolution;
+		this.inverseResolution = 1 / resolution;
+		numPoints = (int) Math.ceil((maxVoltage - minVoltage) / resolution) + 1;
+		this.maxVoltage = minVoltage + (numPoints - 1) * resolution;
+
+		rates = new double[numPoints * NUM_RATES];
+		double[] exact = new double[NUM_RATES];
+		for(int i = 0; i < numPoints; i++) {
+			exactRates(minVoltage + i * resolution, exact);
+			System.arraycopy(exact, 0, rates, i * NUM_RATES, NUM_RATES);
+		}
+	}
+
+	/**
+	 * Writes the six interpolated rates at a voltage into out, indexed by ALPHA_N .. BETA_H
+	 * @param v
+	 * @param out
+	 */
+	public void lookup(double v, double[] out) {
+		double position = (v - minVoltage) * inverseResolution;
+		if(!(position >= 0) || position >= numPoints - 1) {
+			exactRates(v, out);  //outside the table, or NaN
+			return;
+		}
+		int cell = (int) position;
+		double fraction = position - cell;
+		int base = cell * NUM_RATES;
+		for(int k = 0; k < NUM_RATES; k++) {
+			double low = rates[base + k];
+			out[k] = low + fraction * (rates[base + NUM_RATES + k] - low);
+		}
+	}
+
+	/**
+	 * Writes the six rates at a voltage from the exact formulas
+	 * @param v
+	 * @param out
+	 */
+	public static void exactRates(double v, double[] out) {
+		out[ALPHA_N] = MembraneState.alphaN(v);
+		out[BETA_N]  = MembraneState.betaN(v);
+		out[ALPHA_M] = MembraneState.alphaM(v);
+		out[BETA_M]  = MembraneState.betaM(v);
+		out[ALPHA_H] = MembraneState.alphaH(v);
+		out[BETA_H]  = MembraneState.betaH(v);
+	}
+
+	/**
+	 * Compares the table against the exact formulas at a number of evenly spaced voltages inside every grid cell
+	 * @param samplesPerCell
+	 * @return the largest absolute deviation of each rate, indexed by ALPHA_N .. BETA_H
+	 */
+	public double[] validate(int samplesPerCell) {
+		double[] maxDeviation = new double[NUM_RATES];
+		double[] tabulated = new double[NUM_RATES];
+		double[] exact = new double[NUM_RATES];
+		for(int cell = 0; cell < numPoints - 1; cell++) {
+			for(int s = 1; s <= samplesPerCell; s++) {
+				double v = minVoltage + (cell + (double) s / (samplesPerCell + 1)) * resolution;
+				lookup(v, tabulated);
+				exactRates(v, exact);
+				for(int k = 0; k < NUM_RATES; k++) {
+					maxDeviation[k] = Math.max(maxDeviation[k], Math.abs(tabulated[k] - exact[k]));
+				}
+			}
+		}
+		return maxDeviation;
+	}
+
+	public double getMinVoltage() {
+		return minVoltage;
+	}
+
+	public double getMaxVoltage() {
+		return maxVoltage;
+	}
+
+	public double getResolution() {
+		return resolution;
+	}
+
+	/**
+	 * Prints the validation report of tables at several resolutions
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		String[] names = {"alpha_n", "beta_n", "alpha_m", "beta_m", "alpha_h", "beta_h"};
+		for(double resolution : new double[]{1, 0.1, 0.01}) {
+			RateTable table = resolution == DEFAULT.getResolution() ? DEFAULT : new RateTable(-100, 150, resolution);
+			double[] deviation = table.validate(7);
+			System.out.printf("Resolution %.2f mV:", resolution);
+			for(int k = 0; k < NUM_RATES; k++) {
+				System.out.printf("  %s %.2e", names[k], deviation[k]);
+			}
+			System.out.println();
+		}
+	}
+}
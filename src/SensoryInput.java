@@ -0,0 +1,20 @@
+import java.util.List;
+
+/**
+ * A receptor that turns a stimulus from the environment into signals on its axon terminals, ready to be passed to the
+ * first neuron of a network through a synapse.
+ *
+ */
+public interface SensoryInput {
+
+	/**
+	 * Processes the stimulus and sets the signals of the axon terminals
+	 */
+	void process();
+
+	/**
+	 * Returns the axon terminals carrying the signal
+	 * @return
+	 */
+	List<AxonTerminal> getAxonTerminalsAsList();
+}
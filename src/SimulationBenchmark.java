@@ -0,0 +1,130 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmark cases for the integrator, the synapse and the topology builders, plus end-to-end linear and mesh
+ * propagation across network sizes and engine steps over the generated topologies.
+ * The JMH module in benchmarks/ measures them: JMH benchmarks have to live in a named package, which cannot see
+ * classes in the default package, so each of its @Benchmark methods sets a case up here by name and runs the
+ * operation returned.
+ *
+ * Usage: mvn install, then mvn -f benchmarks/pom.xml package and java -jar benchmarks/target/benchmarks.jar
+ *
+ */
+public class SimulationBenchmark {
+
+	private static final int NUM_DENDRITES = 8;
+	private static final int NUM_AXON_TERMINALS = 8;
+
+	/* The model prints progress lines that would dominate the timings */
+	private static final PrintStream SILENT = new PrintStream(new OutputStream() {
+		@Override
+		public void write(int b) { }
+	});
+
+	/**
+	 * Sets up a case and returns the operation to measure; the set up itself is not measured
+	 * @param name case name, such as propagation.mesh or engine.topology.smallWorld
+	 * @param size number of neurons, or neurons per row for mesh cases; ignored by cases of a fixed size
+	 * @return
+	 */
+	public static Runnable setUp(String name, final int size) {
+		System.setOut(SILENT);
+		switch(name) {
+		case "hh.runSimulation.traces":
+			return () -> new Hodgkin_Huxley_Simulation(true).runSimulation();
+		case "hh.runSimulation.scalars":
+			return () -> new Hodgkin_Huxley_Simulation(false).runSimulation();
+		case "synapse.process": {
+			final Synapse synapse = new Synapse();
+			SynapticStore store = new SynapticStore(2 * NUM_DENDRITES, 2 * NUM_AXON_TERMINALS);
+			synapse.setAxonTerminalList(new Neuron(NUM_DENDRITES, NUM_AXON_TERMINALS, store).getAxonTerminalsAsList());
+			synapse.setDendriteList(new Neuron(NUM_DENDRITES, NUM_AXON_TERMINALS, store).getDendritesAsList());
+			return synapse::process;
+		}
+		case "mesh.setUpNeuronMesh":
+			return () -> new NeuronMesh(size, NUM_DENDRITES, NUM_AXON_TERMINALS).setUpNeuronMesh();
+		case "propagation.linear": {
+			final List<Neuron> neurons = new ArrayList<>();
+			final List<Synapse> synapses = new ArrayList<>();
+			buildChain(size, neurons, synapses);
+			return () -> {
+				for(int i = 0; i < synapses.size(); i++) {
+					neurons.get(i).processHodgkinHuxley();
+					synapses.get(i).process();
+				}
+				neurons.get(neurons.size() - 1).processHodgkinHuxley();
+			};
+		}
+		case "propagation.mesh": {
+			final NeuronMesh mesh = new NeuronMesh(size, NUM_DENDRITES, NUM_AXON_TERMINALS);
+			mesh.setUpNeuronMesh();
+			return () -> {
+				//Visits every neuron once in row order; each forwards through all of its synapses
+				for(int i = 0; i < size; i++) {
+					for(int j = 0; j < size; j++) {
+						Neuron neuron = mesh.getNeuron(i, j);
+						neuron.processHodgkinHuxley();
+						List<Synapse> synapses = mesh.getSynapses(neuron);
+						for(int k = 0; k < synapses.size(); k++) {
+							synapses.get(k).process();
+						}
+					}
+				}
+			};
+		}
+		case "engine.mesh.step":
+			return engineStep(NetworkTopology.mesh(size), null);
+		case "engine.mesh.step.table":
+			return engineStep(NetworkTopology.mesh(size), RateTable.DEFAULT);
+		case "engine.topology.tree":
+			return engineStep(TopologyGenerators.tree(size, 2).generate(), RateTable.DEFAULT);
+		case "engine.topology.lattice3D": {
+			int side = (int) Math.round(Math.cbrt(size));
+			return engineStep(TopologyGenerators.lattice3D(side, side, side).generate(), RateTable.DEFAULT);
+		}
+		case "engine.topology.random":
+			return engineStep(TopologyGenerators.random(size, 4.0 / size, RandomService.getSeed()).generate(), RateTable.DEFAULT);
+		case "engine.topology.smallWorld":
+			return engineStep(TopologyGenerators.smallWorld(size, 4, 0.1, RandomService.getSeed()).generate(), RateTable.DEFAULT);
+		case "engine.topology.scaleFree":
+			return engineStep(TopologyGenerators.scaleFree(size, 2, RandomService.getSeed()).generate(), RateTable.DEFAULT);
+		default:
+			throw new IllegalArgumentException("Unknown benchmark case: " + name);
+		}
+	}
+
+	/**
+	 * Returns one NetworkEngine step over a topology with its first neuron stimulated
+	 * @param topology
+	 * @param rateTable null for the exact rate formulas
+	 * @return
+	 */
+	private static Runnable engineStep(NetworkTopology topology, RateTable rateTable) {
+		final NetworkEngine engine = new NetworkEngine(topology, HodgkinHuxleyParameters.DEFAULT);
+		engine.setRateTable(rateTable);
+		engine.stimulate(0, 10);
+		return engine::step;
+	}
+
+	/**
+	 * Builds a linear chain like the linear drivers and returns neurons followed by the synapses between them
+	 * @param numNeurons
+	 * @param neurons
+	 * @param synapses
+	 */
+	private static void buildChain(int numNeurons, List<Neuron> neurons, List<Synapse> synapses) {
+		SynapticStore store = new SynapticStore(numNeurons * NUM_DENDRITES, numNeurons * NUM_AXON_TERMINALS);
+		for(int i = 0; i < numNeurons; i++) {
+			neurons.add(new Neuron(NUM_DENDRITES, NUM_AXON_TERMINALS, store));
+		}
+		for(int i = 0; i < numNeurons - 1; i++) {
+			Synapse aSynapse = new Synapse();
+			aSynapse.setAxonTerminalList(neurons.get(i).getAxonTerminalsAsList());
+			aSynapse.setDendriteList(neurons.get(i + 1).getDendritesAsList());
+			synapses.add(aSynapse);
+		}
+	}
+}
@@ -0,0 +1,143 @@
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Runs the sensory propagation simulation for any combination of sensory input and network topology.
+ * A run builds the network, lets the input process its stimulus, passes the signal to neuron 0 and propagates it
+ * through the whole network with a PropagationEngine.
+ *
+ * A sweep over several combinations is read from a properties file:
+ *   inputs=photo,olfactory
+ *   topologies=chain:1225,mesh:35,tree:1225:2
+ *   dendrites=8
+ *   axonTerminals=8
+ *   repetitions=1
+ *   seed=42 (optional)
+ *
+ * Usage: java SimulationRunner [config file]
+ *
+ */
+public class SimulationRunner {
+
+	public static final String PHOTO = "photo";
+	public static final String OLFACTORY = "olfactory";
+
+	/* Neuron receiving the sensory input */
+	public static final int SOURCE_ID = 0;
+
+	private final String[] inputs;
+	private final String[] topologies;
+	private final int numDendrites;
+	private final int numAxonTerminals;
+	private final int repetitions;
+
+	/**
+	 * Reads a sweep from a configuration, falling back to both inputs over the chain and mesh of the drivers
+	 * @param config
+	 */
+	public SimulationRunner(Properties config) {
+		if(config.getProperty("seed") != null) {
+			RandomService.setSeed(Long.parseLong(config.getProperty("seed").trim()));
+		}
+		inputs           = config.getProperty("inputs", PHOTO + "," + OLFACTORY).split(",");
+		topologies       = config.getProperty("topologies", "chain:1225,mesh:25").split(",");
+		numDendrites     = Integer.parseInt(config.getProperty("dendrites", "8").trim());
+		numAxonTerminals = Integer.parseInt(config.getProperty("axonTerminals", "8").trim());
+		repetitions      = Integer.parseInt(config.getProperty("repetitions", "1").trim());
+	}
+
+	/**
+	 * Creates a sensory input together with the stimulus source it senses
+	 * @param kind PHOTO or OLFACTORY
+	 * @param numAxonTerminals axon terminals of the receptor
+	 * @return
+	 */
+	public static SensoryInput createInput(String kind, int numAxonTerminals) {
+		switch(kind.trim()) {
+		case PHOTO:
+			LightBulb theBulb = new LightBulb();   //light stimuli
+			int numInitialPhotons = theBulb.getPhotons();
+			PhotoReceptor photoReceptor = new PhotoReceptor(numInitialPhotons, numAxonTerminals);
+
+			//Accumulate photons until we reach activation threshold
+			while(!photoReceptor.wasRhodopsinTriggered()) {
+				photoReceptor.addMorePhotons(numInitialPhotons + theBulb.getPhotons());
+			}
+			return photoReceptor;
+		case OLFACTORY:
+			Pizza somePizza = new Pizza();   //pizza stimuli
+			return new OlfactoryReceptor(somePizza.getMolecule(), numAxonTerminals);
+		default:
+			throw new IllegalArgumentException("Unknown sensory input: " + kind);
+		}
+	}
+
+	/**
+	 * Feeds a built network from a new sensory input and propagates the signal from neuron 0
+	 * @param input PHOTO or OLFACTORY
+	 * @param engine network to propagate through, reset if already used
+	 * @param numAxonTerminals
+	 */
+	public static void run(String input, PropagationEngine engine, int numAxonTerminals) {
+		engine.reset();
+		engine.connectInput(createInput(input, numAxonTerminals), SOURCE_ID);
+		engine.propagate(SOURCE_ID);
+	}
+
+	/**
+	 * Builds a network, feeds it from a sensory input and propagates the signal from neuron 0
+	 * @param input PHOTO or OLFACTORY
+	 * @param generator
+	 * @param numDendrites
+	 * @param numAxonTerminals
+	 * @return the engine with the statistics of the run
+	 */
+	public static PropagationEngine run(String input, TopologyGenerator generator, int numDendrites, int numAxonTerminals) {
+		PropagationEngine engine = new PropagationEngine(generator.generate(), numDendrites, numAxonTerminals);
+		run(input, engine, numAxonTerminals);
+		return engine;
+	}
+
+	/**
+	 * Prints the time a run spent propagating, in the format of the original drivers
+	 * @param engine
+	 */
+	public static void printSimulationTime(PropagationEngine engine) {
+		System.out.printf("Total Simulation Time: %.3f s\n", engine.getPropagationNanos() / 1e9);
+	}
+
+	/**
+	 * Runs every combination of input and topology and prints one row per run. Each network is built once and reset
+	 * between repetitions.
+	 */
+	public void sweep() {
+		System.out.println("Seed: " + RandomService.getSeed());
+		System.out.printf("%-10s %-36s %10s %10s %10s %10s %12s %12s\n", "Input", "Topology", "Neurons", "Synapses",
+				"Activated", "Signals", "Setup (ms)", "Run (ms)");
+		for(String input : inputs) {
+			for(String spec : topologies) {
+				TopologyGenerator generator = TopologyGenerators.parse(spec, RandomService.getSeed());
+				PropagationEngine engine = new PropagationEngine(generator.generate(), numDendrites, numAxonTerminals);
+				for(int r = 0; r < repetitions; r++) {
+					run(input, engine, numAxonTerminals);
+					NetworkTopology topology = engine.getTopology();
+					System.out.printf("%-10s %-36s %10d %10d %10d %10d %12.1f %12.1f\n", input.trim(), generator.getName(),
+							topology.getNumNeurons(), topology.getNumEdges(), engine.getNeuronsActivated(),
+							engine.getSynapsesProcessed(), engine.getSetupNanos() / 1e6, engine.getPropagationNanos() / 1e6);
+				}
+			}
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		Properties config = new Properties();
+		if(args.length > 0) {
+			try(InputStream in = new FileInputStream(args[0])) {
+				config.load(in);
+			}
+		}
+		new SimulationRunner(config).sweep();
+	}
+}
@@ -0,0 +1,315 @@
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.function.IntFunction;
+
+/**
+ * Event-driven propagation of spikes through a neural cluster wired after a NetworkTopology.
+ * Spike deliveries are kept in a priority queue ordered by simulated arrival time. Delivering an event runs the
+ * synapse, then integrates the receiving neuron until it either crosses the spike threshold or the response window
+ * ends. A neuron that spikes schedules a delivery on each of its outgoing synapses at now + delay, where the delay is
+ * a fixed synaptic delay plus the conduction time along its axon. Neurons that never receive an event are never integrated.
+ *
+ * A neuron is never integrated past a time at which it could still receive input: the next queued delivery, or
+ * now + SYNAPTIC_DELAY for deliveries not scheduled yet. When it reaches that horizon inside its response window it
+ * queues a check event and resumes from there, so every input is applied to the membrane at its own time.
+ * State is indexed by neuron id: a clock, a response deadline and a first spike time per neuron.
+ *
+ */
+public class SpikeEventScheduler {
+
+	private static final int NUM_DENDRITES = 8;
+	private static final int NUM_AXON_TERMINALS = 8;
+	private static final int NUM_NEURONS_PER_ROW = 25;
+
+	/* Voltage a membrane has to cross upwards to count as a spike, in mV above rest; the one SpikeRecorder uses */
+	public static final double SPIKE_THRESHOLD = SpikeRecorder.DEFAULT_THRESHOLD;
+	/* Transmitter release and receptor binding time, in ms */
+	public static final double SYNAPTIC_DELAY = 0.5;
+	/* Axon conduction velocity in axon length units per ms */
+	public static final double CONDUCTION_VELOCITY = 1.0;
+	/* How long a neuron is integrated after an input before giving up on a spike, in ms */
+	public static final double RESPONSE_WINDOW = 10.0;
+
+	private final NetworkTopology topology;
+	private final IntFunction<Neuron> neurons;
+	private final IntFunction<Synapse> synapses;
+
+	/* Synapse deliveries and stimuli */
+	private final PriorityQueue<SpikeEvent> inputQueue;
+	/* Neurons resuming integration inside their response window */
+	private final PriorityQueue<SpikeEvent> checkQueue;
+	/* Time each neuron has been integrated to, NaN while untouched */
+	private final double[] clock;
+	/* End of the response window of each neuron */
+	private final double[] deadline;
+	/* First spike time of each neuron, NaN if it has not spiked */
+	private final double[] spikeTimes;
+	private int numSpiked;
+	private long sequence;
+	private long eventsProcessed;
+	private double now;
+	private double firstArrival;
+	private double lastArrival;
+
+	/**
+	 * Schedules over a network whose synapse e connects the source of topology edge e to its target
+	 * @param topology
+	 * @param neurons neuron of every id, such as PropagationEngine::getNeuron
+	 * @param synapses synapse of every edge, such as PropagationEngine::getSynapse
+	 */
+	public SpikeEventScheduler(NetworkTopology topology, IntFunction<Neuron> neurons, IntFunction<Synapse> synapses) {
+		this.topology = topology;
+		this.neurons  = neurons;
+		this.synapses = synapses;
+		inputQueue = new PriorityQueue<>();
+		checkQueue = new PriorityQueue<>();
+		clock      = new double[topology.getNumNeurons()];
+		deadline   = new double[topology.getNumNeurons()];
+		spikeTimes = new double[topology.getNumNeurons()];
+		Arrays.fill(clock, Double.NaN);
+		Arrays.fill(spikeTimes, Double.NaN);
+		firstArrival = Double.NaN;
+		lastArrival  = Double.NaN;
+	}
+
+	/**
+	 * Schedules over an already set up mesh
+	 * @param mesh
+	 */
+	public SpikeEventScheduler(NeuronMesh mesh) {
+		this(mesh.getTopology(), mesh::getNeuron, mesh::getSynapse);
+	}
+
+	/**
+	 * Schedules the delivery of an external stimulus through a synapse
+	 * @param synapse synapse whose dendrites belong to the target
+	 * @param targetId
+	 * @param time in ms, not earlier than the events already delivered nor the time the target was integrated to
+	 */
+	public void stimulate(Synapse synapse, int targetId, double time) {
+		if(time < now || clock[targetId] > time) {
+			throw new IllegalArgumentException("Stimulus at " + time + " ms is in the past of neuron " + targetId);
+		}
+		inputQueue.add(new SpikeEvent(time, sequence++, synapse, targetId));
+	}
+
+	/**
+	 * Delivers events in time order until none are left
+	 */
+	public void run() {
+		run(Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Delivers events in time order until none are left or the next one is later than a time limit.
+	 * Of an input and a check at the same time the input goes first.
+	 * @param endTime in ms
+	 */
+	public void run(double endTime) {
+		while(true) {
+			SpikeEvent input = inputQueue.peek();
+			SpikeEvent check = checkQueue.peek();
+			boolean takeInput = input != null && (check == null || input.time <= check.time);
+			SpikeEvent event = takeInput ? input : check;
+			if(event == null || event.time > endTime) {
+				return;
+			}
+			(takeInput ? inputQueue : checkQueue).poll();
+			now = event.time;
+			eventsProcessed++;
+			deliver(event);
+		}
+	}
+
+	/**
+	 * Runs the synapse of an input event, or resumes a neuron for a check event, and integrates the neuron
+	 * @param event
+	 */
+	private void deliver(SpikeEvent event) {
+		int id = event.target;
+		if(spikeTimes[id] == spikeTimes[id]) {
+			return;  //already fired, later arrivals cannot change its first spike
+		}
+		Neuron target = neurons.apply(id);
+		if(event.synapse == null) {
+			if(clock[id] != now) {
+				return;  //superseded by an input that resumed the neuron already
+			}
+		}
+		else {
+			if(Double.isNaN(firstArrival)) {
+				firstArrival = now;
+			}
+			//Untouched neurons are at rest, touched ones catch up while their earlier postsynaptic currents decay
+			if(clock[id] < now) {
+				target.integrate(now - clock[id]);
+			}
+			clock[id] = now;
+			deadline[id] = now + RESPONSE_WINDOW;
+			event.synapse.process();
+		}
+		respond(id, target);
+	}
+
+	/**
+	 * Integrates a neuron from its clock until it spikes, its response window ends or it reaches the time up to which
+	 * no input can arrive, queueing a check to resume in the last case
+	 * @param id
+	 * @param target
+	 */
+	private void respond(int id, Neuron target) {
+		double horizon = Math.min(deadline[id], now + SYNAPTIC_DELAY);
+		if(!inputQueue.isEmpty()) {
+			horizon = Math.min(horizon, inputQueue.peek().time);
+		}
+		double timeStep = target.getParameters().getTimeStep();
+		double t = clock[id];
+		double previousVoltage = target.getVoltage();
+		while(t < horizon - 1e-12) {
+			double step = Math.min(timeStep, horizon - t);
+			target.integrate(step);
+			double voltage = target.getVoltage();
+			if(previousVoltage < SPIKE_THRESHOLD && voltage >= SPIKE_THRESHOLD) {
+				clock[id] = t + step;
+				fire(id, t + step * (SPIKE_THRESHOLD - previousVoltage) / (voltage - previousVoltage));
+				return;
+			}
+			t += step;
+			previousVoltage = voltage;
+		}
+		clock[id] = t;
+		if(t < deadline[id] - 1e-12) {
+			checkQueue.add(new SpikeEvent(t, sequence++, null, id));
+		}
+	}
+
+	/**
+	 * Records a spike and schedules its arrival at every downstream neuron
+	 * @param id
+	 * @param spikeTime
+	 */
+	private void fire(int id, double spikeTime) {
+		spikeTimes[id] = spikeTime;
+		numSpiked++;
+		lastArrival = Double.isNaN(lastArrival) ? spikeTime : Math.max(lastArrival, spikeTime);
+
+		double arrival = spikeTime + getDelay(neurons.apply(id));
+		for(int edge = topology.getEdgeStart(id); edge < topology.getEdgeEnd(id); edge++) {
+			int target = topology.getTarget(edge);
+			if(spikeTimes[target] != spikeTimes[target]) {
+				inputQueue.add(new SpikeEvent(arrival, sequence++, synapses.apply(edge), target));
+			}
+		}
+	}
+
+	/**
+	 * Returns the time between a spike of a neuron and its arrival at the next neurons
+	 * @param neuron
+	 * @return
+	 */
+	public static double getDelay(Neuron neuron) {
+		return SYNAPTIC_DELAY + neuron.getAxonLength() / CONDUCTION_VELOCITY;
+	}
+
+	/**
+	 * Returns the first spike time of a neuron in ms, the interpolated threshold crossing, or NaN if it never spiked
+	 * @param id
+	 * @return
+	 */
+	public double getSpikeTime(int id) {
+		return spikeTimes[id];
+	}
+
+	/**
+	 * Returns the simulated time between the first delivered stimulus and the last neuron to spike, in ms
+	 * @return
+	 */
+	public double getLatency() {
+		return lastArrival - firstArrival;
+	}
+
+	/**
+	 * Returns the number of neurons that spiked
+	 * @return
+	 */
+	public int getNumSpiked() {
+		return numSpiked;
+	}
+
+	/**
+	 * Returns the number of events delivered so far
+	 * @return
+	 */
+	public long getEventsProcessed() {
+		return eventsProcessed;
+	}
+
+	/**
+	 * Returns the time of the last delivered event in ms
+	 * @return
+	 */
+	public double getTime() {
+		return now;
+	}
+
+	/**
+	 * A delivery of a spike through one synapse at a simulated time, or a check resuming a neuron when it has no synapse.
+	 * Ties are broken by scheduling order so runs are repeatable.
+	 *
+	 */
+	private static class SpikeEvent implements Comparable<SpikeEvent> {
+
+		private final double time;
+		private final long sequence;
+		private final Synapse synapse;
+		private final int target;
+
+		public SpikeEvent(double time, long sequence, Synapse synapse, int target) {
+			this.time     = time;
+			this.sequence = sequence;
+			this.synapse  = synapse;
+			this.target   = target;
+		}
+
+		@Override
+		public int compareTo(SpikeEvent other) {
+			int byTime = Double.compare(time, other.time);
+			return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+		}
+	}
+
+	/**
+	 * Propagates a light stimulus through a P x P mesh and reports the simulated latency
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		LightBulb theBulb = new LightBulb();
+		NeuronMesh mesh = new NeuronMesh(NUM_NEURONS_PER_ROW, NUM_DENDRITES, NUM_AXON_TERMINALS);
+		mesh.setUpNeuronMesh();
+
+		int numInitialPhotons = theBulb.getPhotons();
+		PhotoReceptor photoReceptor = new PhotoReceptor(numInitialPhotons, NUM_DENDRITES);
+		while(!photoReceptor.wasRhodopsinTriggered()) {
+			photoReceptor.addMorePhotons(numInitialPhotons + theBulb.getPhotons());
+		}
+		photoReceptor.process();
+
+		Synapse synapseForPhotoReceptor = new Synapse(-1, -1);
+		synapseForPhotoReceptor.setAxonTerminalList(photoReceptor.getAxonTerminalAsList());
+		synapseForPhotoReceptor.setDendriteList(mesh.getNeuron(0, 0).getDendritesAsList());
+
+		SpikeEventScheduler scheduler = new SpikeEventScheduler(mesh);
+		scheduler.stimulate(synapseForPhotoReceptor, mesh.getId(0, 0), 0);
+
+		long oldTime = System.nanoTime();
+		scheduler.run();
+		long displacement = System.nanoTime() - oldTime;
+
+		int last = mesh.getId(NUM_NEURONS_PER_ROW - 1, NUM_NEURONS_PER_ROW - 1);
+		System.out.println("Neurons Spiked: " + scheduler.getNumSpiked() + " / " + NUM_NEURONS_PER_ROW * NUM_NEURONS_PER_ROW);
+		System.out.println("Events Delivered: " + scheduler.getEventsProcessed());
+		System.out.println("Last Neuron Spike Time: " + scheduler.getSpikeTime(last) + " ms");
+		System.out.println("First To Last Arrival Latency: " + scheduler.getLatency() + " ms");
+		System.out.printf("Total Simulation Time: %.3f s\n", displacement / 1e9);
+	}
+}
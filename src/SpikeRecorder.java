@@ -0,0 +1,222 @@
+import java.util.Arrays;
+
+/**
+ * On-line action potential detector and spike time index for a set of neurons.
+ * A spike is an upward crossing of the threshold, timed by linear interpolation between the two samples around it, and
+ * crossings within the refractory period of the previous spike are ignored. Times are appended to a growable primitive
+ * buffer per neuron, allocated on its first spike, so they stay sorted and queries are binary searches.
+ *
+ * Neurons are independent: different neurons may be recorded from different threads.
+ *
+ */
+public class SpikeRecorder {
+
+	/* Voltage above rest a membrane has to cross upwards, in mV */
+	public static final double DEFAULT_THRESHOLD = 50;
+
+	/* Shortest time between two recorded spikes of a neuron, in ms */
+	public static final double DEFAULT_REFRACTORY_PERIOD = 2;
+
+	private static final double[] NO_SPIKES = new double[0];
+
+	private final double threshold;
+	private final double refractoryPeriod;
+	private final double[][] spikeTimes;
+	private final int[] counts;
+
+	/**
+	 * Creates a recorder with the default threshold and refractory period
+	 * @param numNeurons ids 0 .. numNeurons-1
+	 */
+	public SpikeRecorder(int numNeurons) {
+		this(numNeurons, DEFAULT_THRESHOLD, DEFAULT_REFRACTORY_PERIOD);
+	}
+
+	/**
+	 * @param numNeurons ids 0 .. numNeurons-1
+	 * @param threshold in mV
+	 * @param refractoryPeriod in ms
+	 */
+	public SpikeRecorder(int numNeurons, double threshold, double refractoryPeriod) {
+		this.threshold = threshold;
+		this.refractoryPeriod = refractoryPeriod;
+		spikeTimes = new double[numNeurons][];
+		counts = new int[numNeurons];
+	}
+
+	/**
+	 * Checks one integration step of a neuron for a threshold crossing and records it
+	 * @param id
+	 * @param previousTime time of the sample before the step
+	 * @param previousVoltage voltage before the step
+	 * @param time time of the sample after the step
+	 * @param voltage voltage after the step
+	 * @return true if a spike was recorded
+	 */
+	public boolean detect(int id, double previousTime, double previousVoltage, double time, double voltage) {
+		if(!(previousVoltage < threshold && voltage >= threshold)) {
+			return false;
+		}
+		double fraction = (threshold - previousVoltage) / (voltage - previousVoltage);
+		return record(id, previousTime + fraction * (time - previousTime));
+	}
+
+	/**
+	 * Records a spike unless it falls within the refractory period of the previous one
+	 * @param id
+	 * @param time in ms, not earlier than the previous spike of the neuron
+	 * @return true if the spike was recorded
+	 */
+	public boolean record(int id, double time) {
+		int count = counts[id];
+		double[] times = spikeTimes[id];
+		if(count > 0 && time - times[count - 1] < refractoryPeriod) {
+			return false;
+		}
+		if(times == null) {
+			times = spikeTimes[id] = new double[4];
+		}
+		else if(count == times.length) {
+			times = spikeTimes[id] = Arrays.copyOf(times, 2 * count);
+		}
+		times[count] = time;
+		counts[id] = count + 1;
+		return true;
+	}
+
+	/**
+	 * Forgets every spike, keeping the buffers for the next trial
+	 */
+	public void clear() {
+		Arrays.fill(counts, 0);
+	}
+
+	/**
+	 * Forgets the spikes of one neuron
+	 * @param id
+	 */
+	public void clear(int id) {
+		counts[id] = 0;
+	}
+
+	/**
+	 * Returns the number of spikes of a neuron
+	 * @param id
+	 * @return
+	 */
+	public int getSpikeCount(int id) {
+		return counts[id];
+	}
+
+	/**
+	 * Returns the number of spikes of a neuron in [from, to)
+	 * @param id
+	 * @param from in ms
+	 * @param to in ms
+	 * @return
+	 */
+	public int getSpikeCount(int id, double from, double to) {
+		if(counts[id] == 0 || !(to > from)) {
+			return 0;
+		}
+		return lowerBound(id, to) - lowerBound(id, from);
+	}
+
+	/**
+	 * Returns the first spike time of a neuron, or NaN if it never spiked
+	 * @param id
+	 * @return
+	 */
+	public double getFirstSpikeTime(int id) {
+		return counts[id] == 0 ? Double.NaN : spikeTimes[id][0];
+	}
+
+	/**
+	 * Returns the first spike time of a neuron at or after a time, or NaN if there is none
+	 * @param id
+	 * @param from in ms
+	 * @return
+	 */
+	public double getFirstSpikeTime(int id, double from) {
+		if(counts[id] == 0) {
+			return Double.NaN;
+		}
+		int index = lowerBound(id, from);
+		return index < counts[id] ? spikeTimes[id][index] : Double.NaN;
+	}
+
+	/**
+	 * Returns the spike times of a neuron in order
+	 * @param id
+	 * @return a copy
+	 */
+	public double[] getSpikeTimes(int id) {
+		return counts[id] == 0 ? NO_SPIKES : Arrays.copyOf(spikeTimes[id], counts[id]);
+	}
+
+	/**
+	 * Returns the intervals between consecutive spikes of a neuron
+	 * @param id
+	 * @return one entry fewer than there are spikes
+	 */
+	public double[] getInterSpikeIntervals(int id) {
+		int count = counts[id];
+		if(count < 2) {
+			return NO_SPIKES;
+		}
+		double[] times = spikeTimes[id];
+		double[] intervals = new double[count - 1];
+		for(int k = 1; k < count; k++) {
+			intervals[k - 1] = times[k] - times[k - 1];
+		}
+		return intervals;
+	}
+
+	/**
+	 * Returns the number of neurons that spiked at least once
+	 * @return
+	 */
+	public int getNumSpiking() {
+		int spiking = 0;
+		for(int count : counts) {
+			if(count > 0) {
+				spiking++;
+			}
+		}
+		return spiking;
+	}
+
+	public int getNumNeurons() {
+		return counts.length;
+	}
+
+	public double getThreshold() {
+		return threshold;
+	}
+
+	public double getRefractoryPeriod() {
+		return refractoryPeriod;
+	}
+
+	/**
+	 * Index of the first spike of a neuron at or after a time
+	 * @param id
+	 * @param time
+	 * @return
+	 */
+	private int lowerBound(int id, double time) {
+		double[] times = spikeTimes[id];
+		int low = 0;
+		int high = counts[id];
+		while(low < high) {
+			int middle = (low + high) >>> 1;
+			if(times[middle] < time) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+}
@@ -0,0 +1,189 @@
+/**
+ * Factory for common stimulus protocols and for combining them. Every protocol is immutable and allocation free to evaluate.
+ *
+ */
+public final class Stimuli {
+
+	/* No current at all */
+	public static final Stimulus NONE = constant(0);
+
+	private Stimuli() { }
+
+	/**
+	 * Same current on every step
+	 * @param amplitude
+	 * @return
+	 */
+	public static Stimulus constant(final double amplitude) {
+		return new Stimulus() {
+			@Override
+			public double current(int step, double timeStep) {
+				return amplitude;
+			}
+		};
+	}
+
+	/**
+	 * Current switched on for steps [fromStep, toStep)
+	 * @param fromStep
+	 * @param toStep
+	 * @param amplitude
+	 * @return
+	 */
+	public static Stimulus step(final int fromStep, final int toStep, final double amplitude) {
+		return new Stimulus() {
+			@Override
+			public double current(int step, double timeStep) {
+				return step >= fromStep && step < toStep ? amplitude : 0.0;
+			}
+		};
+	}
+
+	/**
+	 * The original Hodgkin_Huxley_Simulation protocol: current on up to and including initialTimeSteps, off until
+	 * midTimeSteps, then on again for the rest of the run
+	 * @param initialTimeSteps
+	 * @param midTimeSteps
+	 * @param currentLevels
+	 * @return
+	 */
+	public static Stimulus stepProtocol(final int initialTimeSteps, final int midTimeSteps, final double currentLevels) {
+		return new Stimulus() {
+			@Override
+			public double current(int step, double timeStep) {
+				if(step >= initialTimeSteps + 1 && step <= midTimeSteps) {
+					return 0.0;
+				}
+				return currentLevels;
+			}
+		};
+	}
+
+	/**
+	 * Rectangular pulses of a fixed width repeating with a fixed period, starting at a given time
+	 * @param startTime in ms
+	 * @param width pulse length in ms
+	 * @param period time between pulse onsets in ms
+	 * @param amplitude
+	 * @return
+	 */
+	public static Stimulus pulseTrain(final double startTime, final double width, final double period, final double amplitude) {
+		return new Stimulus() {
+			@Override
+			public double current(int step, double timeStep) {
+				double t = step * timeStep - startTime;
+				if(t < 0) {
+					return 0.0;
+				}
+				return t % period < width ? amplitude : 0.0;
+			}
+		};
+	}
+
+	/**
+	 * Current changing linearly from one level to another between two times, held at the end levels outside them
+	 * @param startTime in ms
+	 * @param endTime in ms
+	 * @param fromAmplitude
+	 * @param toAmplitude
+	 * @return
+	 */
+	public static Stimulus ramp(final double startTime, final double endTime, final double fromAmplitude, final double toAmplitude) {
+		return new Stimulus() {
+			@Override
+			public double current(int step, double timeStep) {
+				double t = step * timeStep;
+				if(t <= startTime) {
+					return fromAmplitude;
+				}
+				if(t >= endTime) {
+					return toAmplitude;
+				}
+				return fromAmplitude + (toAmplitude - fromAmplitude) * (t - startTime) / (endTime - startTime);
+			}
+		};
+	}
+
+	/**
+	 * Gaussian white noise. The value of a step is a hash of the seed and the step index, so it needs no generator state,
+	 * is identical every time the same step is asked for and can be shared across threads.
+	 * @param mean
+	 * @param standardDeviation
+	 * @param seed
+	 * @return
+	 */
+	public static Stimulus noise(final double mean, final double standardDeviation, final long seed) {
+		return new Stimulus() {
+			@Override
+			public double current(int step, double timeStep) {
+				long bits = RandomService.hash(seed, step);
+				double u1 = ((bits >>> 11) + 1) * 0x1.0p-53;  //(0, 1]
+				double u2 = (RandomService.mix64(bits) >>> 11) * 0x1.0p-53;
+				return mean + standardDeviation * Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+			}
+		};
+	}
+
+	/**
+	 * Current equal to the signal a neuron's dendrites currently receive from its synapses
+	 * @param neuron
+	 * @return
+	 */
+	public static Stimulus synaptic(final Neuron neuron) {
+		return new Stimulus() {
+			@Override
+			public double current(int step, double timeStep) {
+				return neuron.getDendriticInput();
+			}
+		};
+	}
+
+	/**
+	 * Sum of several protocols
+	 * @param parts
+	 * @return
+	 */
+	public static Stimulus sum(final Stimulus... parts) {
+		final Stimulus[] copy = parts.clone();
+		return new Stimulus() {
+			@Override
+			public double current(int step, double timeStep) {
+				double total = 0;
+				for(int i = 0; i < copy.length; i++) {
+					total += copy[i].current(step, timeStep);
+				}
+				return total;
+			}
+		};
+	}
+
+	/**
+	 * A protocol multiplied by a constant factor
+	 * @param stimulus
+	 * @param factor
+	 * @return
+	 */
+	public static Stimulus scale(final Stimulus stimulus, final double factor) {
+		return new Stimulus() {
+			@Override
+			public double current(int step, double timeStep) {
+				return factor * stimulus.current(step, timeStep);
+			}
+		};
+	}
+
+	/**
+	 * A protocol delayed by a number of steps, silent before it starts
+	 * @param stimulus
+	 * @param delaySteps
+	 * @return
+	 */
+	public static Stimulus delay(final Stimulus stimulus, final int delaySteps) {
+		return new Stimulus() {
+			@Override
+			public double current(int step, double timeStep) {
+				return step < delaySteps ? 0.0 : stimulus.current(step - delaySteps, timeStep);
+			}
+		};
+	}
+}
@@ -0,0 +1,16 @@
+/**
+ * Injected current as a function of the time step index. A stimulus is evaluated lazily on every step instead of being
+ * materialized as a list, and the implementations in Stimuli keep no mutable state, so one protocol can be shared by any
+ * number of neurons and threads.
+ *
+ */
+public interface Stimulus {
+
+	/**
+	 * Returns the injected current during a time step
+	 * @param step index of the time step, starting at 0
+	 * @param timeStep length of a step in ms
+	 * @return
+	 */
+	double current(int step, double timeStep);
+}
@@ -1,6 +1,5 @@
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Region between axon terminals and dendrites managing the sending of neurotransmitters (signals) between neurons
@@ -10,11 +9,17 @@ public class Synapse {
 	
 	private List<AxonTerminal> axonTerminalList;
 	private List<Dendrite> dendriteList;
-	List<Neurotransmitter> neurotransmitterList = new ArrayList<>();
+	
+	/* Store ranges behind the lists when they are SynapticStore ranges, null otherwise */
+	private SynapticStore.Range axonTerminalRange;
+	private SynapticStore.Range dendriteRange;
+	private int dopamineReleased = 0;
+	private int antidopamineReleased = 0;
 	private double signal = 0;
 	private boolean active = false;
 	private int i;
 	private int j;
+	private SplittableRandom random = RandomService.newStream();
 	
 
 	/**
@@ -33,24 +38,73 @@ public class Synapse {
 	}
 	
 	/**
-	 * Sends the signal from each axon terminal to an available dendrite
+	 * Sends the signal from each axon terminal to an available dendrite, where it starts a postsynaptic current.
+	 * Neurotransmitters are counted per type rather than collected, so an activation allocates nothing.
 	 */
 	public void process() {
-		for(AxonTerminal anAxonTerminal : axonTerminalList){
-			List<Vesicle> vesicles = anAxonTerminal.getVesicles();  //takes neurotransmitters out of axonterminals and adds to big list
-			for(Vesicle vesicle : vesicles) {                       //of neurotransmitters
-				List<Neurotransmitter> localList = vesicle.getVesicle();
-				for(Neurotransmitter aTransmitter : localList){
-					//System.out.println(aTransmitter.getTransmitterType());
-					neurotransmitterList.add(aTransmitter);
-				}
+		dopamineReleased = 0;
+		antidopamineReleased = 0;
+		if(axonTerminalRange != null) {
+			SynapticStore store = axonTerminalRange.getStore();
+			int start = axonTerminalRange.getStart();
+			dopamineReleased = store.transmitterCount(start, axonTerminalRange.size(), Dendrite.DOPAMINE);
+			antidopamineReleased = store.transmitterCount(start, axonTerminalRange.size(), Dendrite.ANTIDOPAMINE);
+		}
+		else {
+			for(int i = 0; i < axonTerminalList.size(); i++) {
+				AxonTerminal anAxonTerminal = axonTerminalList.get(i);  //counts neurotransmitters released by every vesicle
+				dopamineReleased += anAxonTerminal.getTransmitterCount(Dendrite.DOPAMINE);
+				antidopamineReleased += anAxonTerminal.getTransmitterCount(Dendrite.ANTIDOPAMINE);
 			}
 		}
 		
-		for(Dendrite aDendrite : dendriteList){
-			signal = calculateSignal();
-			aDendrite.setSignal(signal);
+		int dopamineLeft = dopamineReleased;
+		int antidopamineLeft = antidopamineReleased;
+		if(dendriteRange != null) {
+			SynapticStore store = dendriteRange.getStore();
+			int start = dendriteRange.getStart();
+			for(int d = start; d < start + dendriteRange.size(); d++) {
+				deliver(store, d, dopamineLeft-- > 0, antidopamineLeft-- > 0);
+			}
+			return;
 		}
+		for(int i = 0; i < dendriteList.size(); i++) {
+			Dendrite aDendrite = dendriteList.get(i);
+			deliver(aDendrite.getStore(), aDendrite.getIndex(), dopamineLeft-- > 0, antidopamineLeft-- > 0);
+		}
+	}
+	
+	/**
+	 * Empties the receptors of a dendrite of the previous activation, binds the neurotransmitters left for it and
+	 * starts its postsynaptic current. Works on the store by index, so no receptor views are created.
+	 * @param store
+	 * @param d dendrite index in the store
+	 * @param dopamine whether a dopamine molecule is left for the dendrite
+	 * @param antidopamine whether an antidopamine molecule is left for the dendrite
+	 */
+	private void deliver(SynapticStore store, int d, boolean dopamine, boolean antidopamine) {
+		store.setOccupied(SynapticStore.receptorSlot(d, Dendrite.DOPAMINE), dopamine);
+		store.setOccupied(SynapticStore.receptorSlot(d, Dendrite.ANTIDOPAMINE), antidopamine);
+		
+		signal = calculateSignal();
+		store.setDendriteSignal(d, signal);
+		store.release(d, signal);
+	}
+	
+	/**
+	 * Returns the number of dopamine molecules released by the last activation
+	 * @return
+	 */
+	public int getDopamineReleased() {
+		return dopamineReleased;
+	}
+	
+	/**
+	 * Returns the number of antidopamine molecules released by the last activation
+	 * @return
+	 */
+	public int getAntidopamineReleased() {
+		return antidopamineReleased;
 	}
 	
 	/**
@@ -66,11 +120,18 @@ public class Synapse {
 	 * @return
 	 */
 	private double calculateSignal() {
-		Random random = new Random();
 		double randomValue = 0.4 + (20 - 0.4) * random.nextDouble();
 	    return randomValue;
 	}
 
+	/**
+	 * Sets the random stream post synaptic strengths are drawn from
+	 * @param random
+	 */
+	public void setRandom(SplittableRandom random) {
+		this.random = random;
+	}
+
 	/**
 	 * Gets the axonterminals associated with this synapse
 	 * @return
@@ -85,6 +146,7 @@ public class Synapse {
 	 */
 	public void setAxonTerminalList(List<AxonTerminal> axonTerminalList) {
 		this.axonTerminalList = axonTerminalList;
+		axonTerminalRange = axonTerminalList instanceof SynapticStore.Range ? (SynapticStore.Range) axonTerminalList : null;
 	}
 
 	/**
@@ -101,6 +163,7 @@ public class Synapse {
 	 */
 	public void setDendriteList(List<Dendrite> dendriteList) {
 		this.dendriteList = dendriteList;
+		dendriteRange = dendriteList instanceof SynapticStore.Range ? (SynapticStore.Range) dendriteList : null;
 	}
 	
 	/**
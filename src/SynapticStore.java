@@ -0,0 +1,376 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Primitive storage of the dendrites and axon terminals of many neurons.
+ * A neuron owns a contiguous range of dendrites and a range of axon terminals; dendrite d keeps its signal at
+ * dendriteSignals[d] and the occupancy of its dopamine and antidopamine receptors at receptorOccupied[2d] and
+ * receptorOccupied[2d+1], and axon terminal t keeps its signal and vesicle count at index t. Dendrite, DendriteReceptor
+ * and AxonTerminal objects are thin views over an index, created only when asked for, so a network costs a few bytes
+ * per dendrite and terminal instead of a dozen objects.
+ *
+ * Ranges are allocated while a network is built, from one thread. Afterwards different ranges may be read and written
+ * concurrently.
+ *
+ */
+public final class SynapticStore {
+
+	/* Vesicles per axon terminal; each releases one dopamine and one antidopamine */
+	public static final int NUM_VESICLES = 3;
+
+	private double[] dendriteSignals;
+	private boolean[] receptorOccupied;
+	private double[] currentRises;
+	private double[] currents;
+	private int numDendrites = 0;
+	private PostsynapticCurrent postsynapticCurrent = PostsynapticCurrent.DEFAULT;
+
+	private double[] terminalSignals;
+	private byte[] vesicleCounts;
+	private int numAxonTerminals = 0;
+
+	/**
+	 * Creates a store, growing when more is allocated than the initial capacities
+	 * @param dendriteCapacity
+	 * @param axonTerminalCapacity
+	 */
+	public SynapticStore(int dendriteCapacity, int axonTerminalCapacity) {
+		dendriteSignals  = new double[Math.max(dendriteCapacity, 1)];
+		receptorOccupied = new boolean[2 * dendriteSignals.length];
+		currentRises     = new double[dendriteSignals.length];
+		currents         = new double[dendriteSignals.length];
+		terminalSignals  = new double[Math.max(axonTerminalCapacity, 1)];
+		vesicleCounts    = new byte[terminalSignals.length];
+	}
+
+	/**
+	 * Reserves a range of dendrites with no signal and empty receptors
+	 * @param count
+	 * @return index of the first dendrite
+	 */
+	public int allocateDendrites(int count) {
+		int start = numDendrites;
+		if(start + count > dendriteSignals.length) {
+			int capacity = Math.max(start + count, 2 * dendriteSignals.length);
+			dendriteSignals  = Arrays.copyOf(dendriteSignals, capacity);
+			receptorOccupied = Arrays.copyOf(receptorOccupied, 2 * capacity);
+			currentRises     = Arrays.copyOf(currentRises, capacity);
+			currents         = Arrays.copyOf(currents, capacity);
+		}
+		numDendrites += count;
+		return start;
+	}
+
+	/**
+	 * Reserves a range of axon terminals with no signal and full vesicles
+	 * @param count
+	 * @return index of the first axon terminal
+	 */
+	public int allocateAxonTerminals(int count) {
+		int start = numAxonTerminals;
+		if(start + count > terminalSignals.length) {
+			int capacity = Math.max(start + count, 2 * terminalSignals.length);
+			terminalSignals = Arrays.copyOf(terminalSignals, capacity);
+			vesicleCounts   = Arrays.copyOf(vesicleCounts, capacity);
+		}
+		Arrays.fill(vesicleCounts, start, start + count, (byte) NUM_VESICLES);
+		numAxonTerminals += count;
+		return start;
+	}
+
+	/**
+	 * Returns a list view of a range of dendrites
+	 * @param start
+	 * @param count
+	 * @return
+	 */
+	public List<Dendrite> dendrites(int start, int count) {
+		return new DendriteRange(this, start, count);
+	}
+
+	/**
+	 * Returns a list view of a range of axon terminals
+	 * @param start
+	 * @param count
+	 * @return
+	 */
+	public List<AxonTerminal> axonTerminals(int start, int count) {
+		return new AxonTerminalRange(this, start, count);
+	}
+
+	/**
+	 * Sets the time course of the current released into every dendrite of the store
+	 * @param postsynapticCurrent
+	 */
+	public void setPostsynapticCurrent(PostsynapticCurrent postsynapticCurrent) {
+		this.postsynapticCurrent = postsynapticCurrent;
+	}
+
+	public PostsynapticCurrent getPostsynapticCurrent() {
+		return postsynapticCurrent;
+	}
+
+	/**
+	 * Clears the signal and receptors of every dendrite and returns every axon terminal to no signal and full vesicles
+	 */
+	public void reset() {
+		resetDendrites(0, numDendrites);
+		resetAxonTerminals(0, numAxonTerminals);
+	}
+
+	/**
+	 * Clears the signal, postsynaptic current and receptors of a range of dendrites
+	 * @param start
+	 * @param count
+	 */
+	public void resetDendrites(int start, int count) {
+		Arrays.fill(dendriteSignals, start, start + count, 0);
+		Arrays.fill(currentRises, start, start + count, 0);
+		Arrays.fill(currents, start, start + count, 0);
+		Arrays.fill(receptorOccupied, 2 * start, 2 * (start + count), false);
+	}
+
+	/**
+	 * Clears the signal of a range of axon terminals and refills their vesicles
+	 * @param start
+	 * @param count
+	 */
+	public void resetAxonTerminals(int start, int count) {
+		Arrays.fill(terminalSignals, start, start + count, 0);
+		Arrays.fill(vesicleCounts, start, start + count, (byte) NUM_VESICLES);
+	}
+
+	/**
+	 * Starts a postsynaptic current of an amplitude in a dendrite, on top of what it already carries
+	 * @param dendrite
+	 * @param amplitude
+	 */
+	public void release(int dendrite, double amplitude) {
+		if(postsynapticCurrent.getShape() == PostsynapticCurrent.EXPONENTIAL) {
+			currents[dendrite] += amplitude;
+		}
+		else {
+			currentRises[dendrite] += amplitude;
+		}
+	}
+
+	/**
+	 * Adds the postsynaptic state of a range of dendrites into state
+	 * @param start
+	 * @param count
+	 * @param state rise term at index 0, current at index 1
+	 */
+	public void sumCurrents(int start, int count, double[] state) {
+		for(int d = start; d < start + count; d++) {
+			state[0] += currentRises[d];
+			state[1] += currents[d];
+		}
+	}
+
+	/**
+	 * Returns the summed postsynaptic current of a range of dendrites
+	 * @param start
+	 * @param count
+	 * @return
+	 */
+	public double sumCurrents(int start, int count) {
+		double sum = 0;
+		for(int d = start; d < start + count; d++) {
+			sum += currents[d];
+		}
+		return sum;
+	}
+
+	/**
+	 * Lets the postsynaptic currents of a range of dendrites evolve over an interval without releases
+	 * @param start
+	 * @param count
+	 * @param dt in ms
+	 */
+	public void advanceCurrents(int start, int count, double dt) {
+		double decay = postsynapticCurrent.decayFactor(dt);
+		double gain = dt / postsynapticCurrent.getTimeConstant();
+		for(int d = start; d < start + count; d++) {
+			currents[d] = (currents[d] + currentRises[d] * gain) * decay;
+			currentRises[d] *= decay;
+		}
+	}
+
+	double getCurrent(int dendrite) {
+		return currents[dendrite];
+	}
+
+	double getDendriteSignal(int dendrite) {
+		return dendriteSignals[dendrite];
+	}
+
+	void setDendriteSignal(int dendrite, double signal) {
+		dendriteSignals[dendrite] = signal;
+	}
+
+	/**
+	 * Receptor slot of a dendrite for a neurotransmitter type
+	 * @param dendrite
+	 * @param type Dendrite.DOPAMINE or Dendrite.ANTIDOPAMINE
+	 * @return
+	 */
+	static int receptorSlot(int dendrite, int type) {
+		return 2 * dendrite + type - Dendrite.DOPAMINE;
+	}
+
+	boolean isOccupied(int slot) {
+		return receptorOccupied[slot];
+	}
+
+	void setOccupied(int slot, boolean occupied) {
+		receptorOccupied[slot] = occupied;
+	}
+
+	double getTerminalSignal(int terminal) {
+		return terminalSignals[terminal];
+	}
+
+	void setTerminalSignal(int terminal, double signal) {
+		terminalSignals[terminal] = signal;
+	}
+
+	int getVesicleCount(int terminal) {
+		return vesicleCounts[terminal];
+	}
+
+	/**
+	 * Returns how many neurotransmitters of a type a range of axon terminals releases together
+	 * @param start
+	 * @param count
+	 * @param type
+	 * @return
+	 */
+	int transmitterCount(int start, int count, int type) {
+		if(type != Dendrite.DOPAMINE && type != Dendrite.ANTIDOPAMINE) {
+			return 0;
+		}
+		int total = 0;
+		for(int t = start; t < start + count; t++) {
+			total += vesicleCounts[t];
+		}
+		return total;
+	}
+
+	/**
+	 * Contiguous range of dendrites or axon terminals of a store, which code working on the store directly can
+	 * address by index instead of through the views
+	 *
+	 */
+	interface Range {
+
+		SynapticStore getStore();
+
+		/**
+		 * Index of the first element in the store
+		 * @return
+		 */
+		int getStart();
+
+		/**
+		 * Number of elements
+		 * @return
+		 */
+		int size();
+	}
+
+	/**
+	 * Read only list of dendrite views over a range of a store. Each view is created on first access and then reused;
+	 * views only hold final fields, so threads racing on the first access at worst create an equivalent spare.
+	 *
+	 */
+	static final class DendriteRange extends AbstractList<Dendrite> implements Range {
+		private final SynapticStore store;
+		private final int start;
+		private final int count;
+		private Dendrite[] views;
+
+		DendriteRange(SynapticStore store, int start, int count) {
+			this.store = store;
+			this.start = start;
+			this.count = count;
+		}
+
+		@Override
+		public Dendrite get(int index) {
+			if(index < 0 || index >= count) {
+				throw new IndexOutOfBoundsException("Dendrite " + index + " of " + count);
+			}
+			if(views == null) {
+				views = new Dendrite[count];
+			}
+			Dendrite view = views[index];
+			if(view == null) {
+				view = views[index] = new Dendrite(store, start + index);
+			}
+			return view;
+		}
+
+		@Override
+		public int size() {
+			return count;
+		}
+
+		@Override
+		public SynapticStore getStore() {
+			return store;
+		}
+
+		@Override
+		public int getStart() {
+			return start;
+		}
+	}
+
+	/**
+	 * Read only list of axon terminal views over a range of a store, each created on first access and then reused
+	 *
+	 */
+	static final class AxonTerminalRange extends AbstractList<AxonTerminal> implements Range {
+		private final SynapticStore store;
+		private final int start;
+		private final int count;
+		private AxonTerminal[] views;
+
+		AxonTerminalRange(SynapticStore store, int start, int count) {
+			this.store = store;
+			this.start = start;
+			this.count = count;
+		}
+
+		@Override
+		public AxonTerminal get(int index) {
+			if(index < 0 || index >= count) {
+				throw new IndexOutOfBoundsException("Axon terminal " + index + " of " + count);
+			}
+			if(views == null) {
+				views = new AxonTerminal[count];
+			}
+			AxonTerminal view = views[index];
+			if(view == null) {
+				view = views[index] = new AxonTerminal(store, start + index);
+			}
+			return view;
+		}
+
+		@Override
+		public int size() {
+			return count;
+		}
+
+		@Override
+		public SynapticStore getStore() {
+			return store;
+		}
+
+		@Override
+		public int getStart() {
+			return start;
+		}
+	}
+}
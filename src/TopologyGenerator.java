@@ -0,0 +1,19 @@
+/**
+ * Builds the connectivity of a neural cluster. Generators are parameterized and seeded when they are created, so calling
+ * generate() twice gives identical networks whatever the number of threads used to build them.
+ *
+ */
+public interface TopologyGenerator {
+
+	/**
+	 * Builds the network
+	 * @return
+	 */
+	NetworkTopology generate();
+
+	/**
+	 * Returns a short description of the generator and its parameters for reports
+	 * @return
+	 */
+	String getName();
+}
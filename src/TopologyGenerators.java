@@ -0,0 +1,469 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Factory for network topologies beyond the chain and the 2D mesh: k-ary trees, 3D lattices, random graphs,
+ * Watts-Strogatz small-world graphs and Barabasi-Albert scale-free graphs.
+ *
+ * Random generators derive an independent stream per neuron from the seed and the neuron id, and the CSR arrays are
+ * filled per neuron on the common ForkJoin pool, so million neuron networks build in parallel and still come out the same
+ * for a given seed.
+ *
+ */
+public final class TopologyGenerators {
+
+
+	private TopologyGenerators() { }
+
+	/**
+	 * Linear chain, as wired by the linear drivers
+	 * @param numNeurons
+	 * @return
+	 */
+	public static TopologyGenerator chain(final int numNeurons) {
+		return new TopologyGenerator() {
+			@Override
+			public NetworkTopology generate() {
+				return NetworkTopology.chain(numNeurons);
+			}
+			@Override
+			public String getName() {
+				return "chain(" + numNeurons + ")";
+			}
+		};
+	}
+
+	/**
+	 * P x P mesh, as wired by NeuronMesh
+	 * @param numNeuronsPerRow
+	 * @return
+	 */
+	public static TopologyGenerator mesh(final int numNeuronsPerRow) {
+		return new TopologyGenerator() {
+			@Override
+			public NetworkTopology generate() {
+				return NetworkTopology.mesh(numNeuronsPerRow);
+			}
+			@Override
+			public String getName() {
+				return "mesh(" + numNeuronsPerRow + ")";
+			}
+		};
+	}
+
+	/**
+	 * Complete k-ary tree in breadth first order, with synapses from each parent to its children.
+	 * The children of neuron id are k*id+1 .. k*id+k, so neuron 0 is the root.
+	 * @param numNeurons
+	 * @param branching children per neuron
+	 * @return
+	 */
+	public static TopologyGenerator tree(final int numNeurons, final int branching) {
+		if(branching < 1) {
+			throw new IllegalArgumentException("A tree needs at least one child per neuron");
+		}
+		return new TopologyGenerator() {
+			@Override
+			public NetworkTopology generate() {
+				final int[] offsets = new int[numNeurons + 1];
+				parallel(numNeurons, id -> offsets[id + 1] = treeChildren(id, numNeurons, branching));
+				final int[] targets = new int[prefixSum(offsets)];
+				parallel(numNeurons, id -> {
+					for(int edge = offsets[id]; edge < offsets[id + 1]; edge++) {
+						targets[edge] = branching * id + 1 + (edge - offsets[id]);
+					}
+				});
+				return new NetworkTopology(offsets, targets);
+			}
+			@Override
+			public String getName() {
+				return "tree(" + numNeurons + ", k=" + branching + ")";
+			}
+		};
+	}
+
+	private static int treeChildren(int id, int numNeurons, int branching) {
+		long first = (long) branching * id + 1;
+		return (int) Math.max(0, Math.min(branching, numNeurons - first));
+	}
+
+	/**
+	 * X x Y x Z lattice with a synapse along each positive axis, the 3D counterpart of the mesh.
+	 * Neuron (i, j, l) has id (i*Y + j)*Z + l and connects to l+1, then j+1, then i+1.
+	 * @param sizeX
+	 * @param sizeY
+	 * @param sizeZ
+	 * @return
+	 */
+	public static TopologyGenerator lattice3D(final int sizeX, final int sizeY, final int sizeZ) {
+		return new TopologyGenerator() {
+			@Override
+			public NetworkTopology generate() {
+				int numNeurons = Math.multiplyExact(Math.multiplyExact(sizeX, sizeY), sizeZ);
+				final int[] offsets = new int[numNeurons + 1];
+				parallel(numNeurons, id -> {
+					int l = id % sizeZ;
+					int j = (id / sizeZ) % sizeY;
+					int i = id / (sizeZ * sizeY);
+					offsets[id + 1] = (l < sizeZ - 1 ? 1 : 0) + (j < sizeY - 1 ? 1 : 0) + (i < sizeX - 1 ? 1 : 0);
+				});
+				final int[] targets = new int[prefixSum(offsets)];
+				parallel(numNeurons, id -> {
+					int l = id % sizeZ;
+					int j = (id / sizeZ) % sizeY;
+					int i = id / (sizeZ * sizeY);
+					int edge = offsets[id];
+					if(l < sizeZ - 1) {
+						targets[edge++] = id + 1;
+					}
+					if(j < sizeY - 1) {
+						targets[edge++] = id + sizeZ;
+					}
+					if(i < sizeX - 1) {
+						targets[edge] = id + sizeZ * sizeY;
+					}
+				});
+				return new NetworkTopology(offsets, targets);
+			}
+			@Override
+			public String getName() {
+				return "lattice3D(" + sizeX + "x" + sizeY + "x" + sizeZ + ")";
+			}
+		};
+	}
+
+	/**
+	 * Directed Erdos-Renyi graph where every ordered pair of distinct neurons has a synapse with the same probability.
+	 * Each neuron skips geometrically distributed gaps between its targets, so the cost is proportional to the edges made.
+	 * @param numNeurons
+	 * @param probability
+	 * @param seed
+	 * @return
+	 */
+	public static TopologyGenerator random(final int numNeurons, final double probability, final long seed) {
+		if(!(probability >= 0 && probability <= 1)) {
+			throw new IllegalArgumentException("Probability must be between 0 and 1");
+		}
+		return new TopologyGenerator() {
+			@Override
+			public NetworkTopology generate() {
+				final int[] offsets = new int[numNeurons + 1];
+				parallel(numNeurons, id -> offsets[id + 1] = randomTargets(id, numNeurons, probability, seed, null, 0));
+				final int[] targets = new int[prefixSum(offsets)];
+				//Replays each neuron's stream, so the second pass writes exactly the targets the first one counted
+				parallel(numNeurons, id -> randomTargets(id, numNeurons, probability, seed, targets, offsets[id]));
+				return new NetworkTopology(offsets, targets);
+			}
+			@Override
+			public String getName() {
+				return "random(" + numNeurons + ", p=" + probability + ")";
+			}
+		};
+	}
+
+	/**
+	 * Counts, and when out is given writes, the targets of one neuron of a random graph in increasing order
+	 * @return number of targets
+	 */
+	private static int randomTargets(int id, int numNeurons, double probability, long seed, int[] out, int start) {
+		int candidates = numNeurons - 1;
+		if(probability == 0 || candidates <= 0) {
+			return 0;
+		}
+		SplittableRandom random = RandomService.stream(seed, id);
+		double logQ = Math.log1p(-probability);
+		int count = 0;
+		long position = -1;
+		while(true) {
+			if(probability == 1) {
+				position++;
+			}
+			else {
+				position += 1 + (long) (Math.log1p(-random.nextDouble()) / logQ);
+			}
+			if(position >= candidates) {
+				return count;
+			}
+			if(out != null) {
+				out[start + count] = position < id ? (int) position : (int) position + 1;  //skip self
+			}
+			count++;
+		}
+	}
+
+	/**
+	 * Watts-Strogatz small-world graph: a ring where every neuron is linked to its neighbors up to neighbors/2 positions
+	 * away on either side, after which each link is rewired to a uniformly chosen neuron with a probability.
+	 * Links are undirected, so each becomes a synapse in both directions.
+	 *
+	 * Which links are rewired, and the first target drawn for each, is decided per neuron in parallel. The rewired links
+	 * then take their targets in link order against the set of every link made, so a rewired link is never a self link or a
+	 * copy of any other link. The network has neurons * neighbors synapses, unless the ring is so dense that a neuron
+	 * is already linked to every other one, in which case its rewired link is dropped.
+	 * @param numNeurons
+	 * @param neighbors even number of ring neighbors per neuron
+	 * @param rewiring probability of rewiring a link
+	 * @param seed
+	 * @return
+	 */
+	public static TopologyGenerator smallWorld(final int numNeurons, final int neighbors, final double rewiring, final long seed) {
+		if(neighbors < 2 || neighbors % 2 != 0 || neighbors >= numNeurons) {
+			throw new IllegalArgumentException("Ring neighbors must be even, at least 2 and below the number of neurons");
+		}
+		return new TopologyGenerator() {
+			@Override
+			public NetworkTopology generate() {
+				final int half = neighbors / 2;
+				int numLinks = Math.multiplyExact(numNeurons, half);
+				final int[] sources = new int[numLinks];
+				final int[] targets = new int[numLinks];
+				final boolean[] rewired = new boolean[numLinks];
+				parallel(numNeurons, id -> {
+					SplittableRandom random = RandomService.stream(seed, id);
+					int base = id * half;
+					for(int d = 1; d <= half; d++) {
+						int link = base + d - 1;
+						sources[link] = id;
+						targets[link] = (id + d) % numNeurons;
+						if(random.nextDouble() < rewiring) {
+							rewired[link] = true;
+							targets[link] = random.nextInt(numNeurons);
+						}
+					}
+				});
+
+				//Ring links never repeat as neighbors/2 is below half the ring, so only rewired links need checking
+				LinkSet links = new LinkSet(numLinks);
+				for(int link = 0; link < numLinks; link++) {
+					if(!rewired[link]) {
+						links.add(linkKey(sources[link], targets[link], numNeurons));
+					}
+				}
+				SplittableRandom random = RandomService.stream(seed, -1);
+				int kept = 0;
+				for(int link = 0; link < numLinks; link++) {
+					int target = targets[link];
+					if(rewired[link]) {
+						target = rewire(sources[link], target, links, numNeurons, random);
+						if(target < 0) {
+							continue;
+						}
+					}
+					sources[kept] = sources[link];
+					targets[kept] = target;
+					kept++;
+				}
+				return NetworkTopology.fromEdges(numNeurons, Arrays.copyOf(sources, kept), Arrays.copyOf(targets, kept), true);
+			}
+			@Override
+			public String getName() {
+				return "smallWorld(" + numNeurons + ", k=" + neighbors + ", beta=" + rewiring + ")";
+			}
+		};
+	}
+
+	/**
+	 * Adds a rewired link to the link set, starting from the target drawn for it and drawing again while that is the
+	 * neuron itself or already linked to it
+	 * @return the target, or -1 if the neuron is already linked to every other neuron
+	 */
+	private static int rewire(int id, int target, LinkSet links, int numNeurons, SplittableRandom random) {
+		for(int attempt = 0; attempt < numNeurons; attempt++) {
+			if(target != id && links.add(linkKey(id, target, numNeurons))) {
+				return target;
+			}
+			target = random.nextInt(numNeurons);
+		}
+		//Almost every neuron is taken, look for a free one in order
+		for(target = 0; target < numNeurons; target++) {
+			if(target != id && links.add(linkKey(id, target, numNeurons))) {
+				return target;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Key of the undirected link between two neurons, the same whichever end comes first
+	 */
+	private static long linkKey(int a, int b, int numNeurons) {
+		return (long) Math.min(a, b) * numNeurons + Math.max(a, b);
+	}
+
+	/**
+	 * Set of link keys with open addressing over a primitive array, so millions of links cost no boxing
+	 *
+	 */
+	private static final class LinkSet {
+		private static final long EMPTY = -1;
+
+		private final long[] keys;
+		private final int mask;
+
+		/**
+		 * @param capacity most keys the set will hold
+		 */
+		LinkSet(int capacity) {
+			int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) * 2;
+			keys = new long[size];
+			Arrays.fill(keys, EMPTY);
+			mask = size - 1;
+		}
+
+		/**
+		 * Adds a key
+		 * @param key non-negative
+		 * @return false if the set already held it
+		 */
+		boolean add(long key) {
+			int slot = (int) RandomService.mix64(key) & mask;
+			while(keys[slot] != EMPTY) {
+				if(keys[slot] == key) {
+					return false;
+				}
+				slot = (slot + 1) & mask;
+			}
+			keys[slot] = key;
+			return true;
+		}
+	}
+
+	/**
+	 * Barabasi-Albert scale-free graph: neurons join one at a time and link to a number of distinct existing neurons chosen
+	 * with probability proportional to their degree, after the first ones link to every neuron before them. Growth is sequential by definition and runs in linear time by sampling
+	 * from the list of link endpoints; building the CSR arrays from the links is parallel.
+	 * Links are undirected, so each becomes a synapse in both directions.
+	 * @param numNeurons
+	 * @param linksPerNeuron links made by every new neuron
+	 * @param seed
+	 * @return
+	 */
+	public static TopologyGenerator scaleFree(final int numNeurons, final int linksPerNeuron, final long seed) {
+		if(linksPerNeuron < 1) {
+			throw new IllegalArgumentException("New neurons must make at least one link");
+		}
+		return new TopologyGenerator() {
+			@Override
+			public NetworkTopology generate() {
+				//endpoints[2e] and endpoints[2e+1] are the neurons of link e; picking a uniform entry picks by degree
+				int[] endpoints = new int[Math.multiplyExact(2, Math.multiplyExact(numNeurons, linksPerNeuron))];
+				SplittableRandom random = RandomService.stream(seed, -1);
+				int numLinks = 0;
+				for(int id = 1; id < numNeurons; id++) {
+					int existing = 2 * numLinks;
+					int made = 0;
+					while(made < linksPerNeuron && made < id) {
+						//The first neurons link to all before them; later ones draw from the earlier links only, so
+						//never themselves, and draw again on a neuron they already picked
+						int target = id <= linksPerNeuron ? made : endpoints[random.nextInt(existing)];
+						boolean taken = false;
+						for(int k = 0; k < made && !taken; k++) {
+							taken = endpoints[existing + 2 * k + 1] == target;
+						}
+						if(!taken) {
+							endpoints[existing + 2 * made] = id;
+							endpoints[existing + 2 * made + 1] = target;
+							made++;
+						}
+					}
+					numLinks += made;
+				}
+				int[] sources = new int[numLinks];
+				int[] targets = new int[numLinks];
+				for(int link = 0; link < numLinks; link++) {
+					sources[link] = endpoints[2 * link];
+					targets[link] = endpoints[2 * link + 1];
+				}
+				return NetworkTopology.fromEdges(numNeurons, sources, targets, true);
+			}
+			@Override
+			public String getName() {
+				return "scaleFree(" + numNeurons + ", m=" + linksPerNeuron + ")";
+			}
+		};
+	}
+
+	/**
+	 * Creates a generator from a text description such as "mesh:25" or "smallWorld:10000:4:0.1", the kind followed by
+	 * the arguments of its factory method without the seed
+	 * @param spec
+	 * @param seed used by the random kinds
+	 * @return
+	 */
+	public static TopologyGenerator parse(String spec, long seed) {
+		String[] parts = spec.trim().split(":");
+		try {
+			switch(parts[0]) {
+			case "chain":
+				return chain(Integer.parseInt(parts[1]));
+			case "mesh":
+				return mesh(Integer.parseInt(parts[1]));
+			case "tree":
+				return tree(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+			case "lattice3D":
+				return lattice3D(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+			case "random":
+				return random(Integer.parseInt(parts[1]), Double.parseDouble(parts[2]), seed);
+			case "smallWorld":
+				return smallWorld(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Double.parseDouble(parts[3]), seed);
+			case "scaleFree":
+				return scaleFree(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), seed);
+			default:
+				throw new IllegalArgumentException("Unknown topology: " + spec);
+			}
+		}
+		catch(ArrayIndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("Missing arguments in topology: " + spec);
+		}
+	}
+
+	/**
+	 * Runs a body for every neuron id on the common ForkJoin pool
+	 */
+	static void parallel(int numNeurons, IntConsumer body) {
+		IntStream.range(0, numNeurons).parallel().forEach(body);
+	}
+
+	/**
+	 * Turns per-neuron counts stored at offsets[id+1] into CSR offsets
+	 * @param offsets
+	 * @return total count
+	 */
+	static int prefixSum(int[] offsets) {
+		long total = 0;
+		for(int id = 1; id < offsets.length; id++) {
+			total += offsets[id];
+			offsets[id] = Math.toIntExact(total);
+		}
+		return (int) total;
+	}
+
+	/**
+	 * Prints the size and build time of a million neuron network of every kind
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		int numNeurons = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		long seed = RandomService.getSeed();
+		int side = (int) Math.round(Math.cbrt(numNeurons));
+		TopologyGenerator[] generators = {
+				chain(numNeurons),
+				mesh((int) Math.round(Math.sqrt(numNeurons))),
+				tree(numNeurons, 2),
+				lattice3D(side, side, side),
+				random(numNeurons, 4.0 / numNeurons, seed),
+				smallWorld(numNeurons, 4, 0.1, seed),
+				scaleFree(numNeurons, 2, seed)
+		};
+		System.out.println("Seed: " + seed);
+		for(TopologyGenerator generator : generators) {
+			long start = System.nanoTime();
+			NetworkTopology topology = generator.generate();
+			long elapsed = System.nanoTime() - start;
+			System.out.printf("%-36s %10d neurons %10d synapses %8.1f ms\n", generator.getName(),
+					topology.getNumNeurons(), topology.getNumEdges(), elapsed / 1e6);
+		}
+	}
+}
@@ -0,0 +1,60 @@
+/**
+ * Layout of the binary trace file shared by TraceFileWriter and TraceFileReader. All values are big endian.
+ *
+ * Header:
+ *   int    magic "NTRC"
+ *   int    version
+ *   double dt (ms between samples)
+ *   double start time (ms of sample 0)
+ *   long   number of samples per neuron
+ *   int    number of neurons
+ *   int    number of channels
+ *   int    value size (4 for float, 8 for double)
+ *   int    samples per block
+ *   int[]  neuron ids
+ *   int[]  channel codes
+ *   padding to a multiple of 8 bytes
+ *
+ * Data is a sequence of blocks, each holding the next block's worth of samples for every neuron and channel. Inside a
+ * block the values are columnar: all samples of (neuron 0, channel 0), then (neuron 0, channel 1), and so on. Reading one
+ * neuron's window therefore touches one contiguous run per channel per block.
+ *
+ */
+public final class TraceFileFormat {
+
+	public static final int MAGIC = 0x4E545243;
+	public static final int VERSION = 1;
+
+	public static final int CHANNEL_VOLTAGE = 0;
+	public static final int CHANNEL_CONDUCTANCE_K = 1;
+	public static final int CHANNEL_CONDUCTANCE_NA = 2;
+
+	/* Offset of the sample count, rewritten when the writer is closed */
+	static final int NUM_SAMPLES_OFFSET = 24;
+	static final int FIXED_HEADER_SIZE = 48;
+
+	private TraceFileFormat() { }
+
+	/**
+	 * Returns the byte offset of the first block
+	 * @param numNeurons
+	 * @param numChannels
+	 * @return
+	 */
+	static long dataOffset(int numNeurons, int numChannels) {
+		long size = FIXED_HEADER_SIZE + 4L * (numNeurons + numChannels);
+		return (size + 7) & ~7L;
+	}
+
+	/**
+	 * Returns the size of one block in bytes
+	 * @param numNeurons
+	 * @param numChannels
+	 * @param valueSize
+	 * @param blockSamples
+	 * @return
+	 */
+	static long blockSize(int numNeurons, int numChannels, int valueSize, int blockSamples) {
+		return (long) numNeurons * numChannels * blockSamples * valueSize;
+	}
+}
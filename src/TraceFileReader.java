@@ -0,0 +1,168 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+/**
+ * Random access reader for TraceFileFormat files. Blocks are memory mapped on first use, so reading a window of one
+ * neuron only pages in the columns it touches.
+ *
+ */
+public class TraceFileReader implements Closeable {
+
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	private final double dt;
+	private final double startTime;
+	private final long numSamples;
+	private final int[] neuronIds;
+	private final int[] channels;
+	private final int valueSize;
+	private final int blockSamples;
+	private final long dataOffset;
+	private final long blockSize;
+	private final MappedByteBuffer[] blocks;
+
+	/**
+	 * Opens a file and reads its header
+	 * @param path
+	 * @throws IOException
+	 */
+	public TraceFileReader(Path path) throws IOException {
+		file = new RandomAccessFile(path.toFile(), "r");
+		channel = file.getChannel();
+
+		ByteBuffer header = ByteBuffer.allocate(TraceFileFormat.FIXED_HEADER_SIZE);
+		channel.read(header, 0);
+		header.flip();
+		if(header.getInt() != TraceFileFormat.MAGIC) {
+			close();
+			throw new IOException("Not a trace file: " + path);
+		}
+		int version = header.getInt();
+		if(version != TraceFileFormat.VERSION) {
+			close();
+			throw new IOException("Unsupported trace file version " + version);
+		}
+		dt = header.getDouble();
+		startTime = header.getDouble();
+		numSamples = header.getLong();
+		int numNeurons = header.getInt();
+		int numChannels = header.getInt();
+		valueSize = header.getInt();
+		blockSamples = header.getInt();
+
+		ByteBuffer ids = ByteBuffer.allocate(4 * (numNeurons + numChannels));
+		channel.read(ids, TraceFileFormat.FIXED_HEADER_SIZE);
+		ids.flip();
+		neuronIds = new int[numNeurons];
+		for(int i = 0; i < numNeurons; i++) {
+			neuronIds[i] = ids.getInt();
+		}
+		channels = new int[numChannels];
+		for(int c = 0; c < numChannels; c++) {
+			channels[c] = ids.getInt();
+		}
+
+		dataOffset = TraceFileFormat.dataOffset(numNeurons, numChannels);
+		blockSize = TraceFileFormat.blockSize(numNeurons, numChannels, valueSize, blockSamples);
+		blocks = new MappedByteBuffer[(int) ((numSamples + blockSamples - 1) / blockSamples)];
+	}
+
+	/**
+	 * Reads samples [fromSample, toSample) of one channel of one neuron
+	 * @param neuronId
+	 * @param channelCode channel code from TraceFileFormat
+	 * @param fromSample
+	 * @param toSample
+	 * @return
+	 * @throws IOException
+	 */
+	public double[] read(int neuronId, int channelCode, long fromSample, long toSample) throws IOException {
+		int column = indexOf(neuronIds, neuronId);
+		int c = indexOf(channels, channelCode);
+		if(column < 0 || c < 0) {
+			throw new IllegalArgumentException("Neuron " + neuronId + " channel " + channelCode + " is not in the file");
+		}
+		if(fromSample < 0 || toSample > numSamples || fromSample > toSample) {
+			throw new IndexOutOfBoundsException("Samples " + fromSample + " to " + toSample + " of " + numSamples);
+		}
+
+		double[] values = new double[(int) (toSample - fromSample)];
+		long columnOffset = ((long) column * channels.length + c) * blockSamples * valueSize;
+		for(long sample = fromSample; sample < toSample; sample++) {
+			MappedByteBuffer block = block((int) (sample / blockSamples));
+			int position = (int) (columnOffset + (sample % blockSamples) * valueSize);
+			values[(int) (sample - fromSample)] = valueSize == 4 ? block.getFloat(position) : block.getDouble(position);
+		}
+		return values;
+	}
+
+	/**
+	 * Reads the time axis of samples [fromSample, toSample)
+	 * @param fromSample
+	 * @param toSample
+	 * @return
+	 */
+	public double[] readTime(long fromSample, long toSample) {
+		double[] times = new double[(int) (toSample - fromSample)];
+		for(int i = 0; i < times.length; i++) {
+			times[i] = startTime + (fromSample + i) * dt;
+		}
+		return times;
+	}
+
+	/**
+	 * Returns the sample index closest to a time
+	 * @param time in ms
+	 * @return
+	 */
+	public long sampleAt(double time) {
+		return Math.max(0, Math.min(numSamples, Math.round((time - startTime) / dt)));
+	}
+
+	private MappedByteBuffer block(int blockIndex) throws IOException {
+		if(blocks[blockIndex] == null) {
+			blocks[blockIndex] = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset + blockIndex * blockSize, blockSize);
+		}
+		return blocks[blockIndex];
+	}
+
+	private static int indexOf(int[] values, int value) {
+		for(int i = 0; i < values.length; i++) {
+			if(values[i] == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	public double getDt() {
+		return dt;
+	}
+
+	public double getStartTime() {
+		return startTime;
+	}
+
+	public long getNumSamples() {
+		return numSamples;
+	}
+
+	public int[] getNeuronIds() {
+		return neuronIds.clone();
+	}
+
+	public int[] getChannels() {
+		return channels.clone();
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+		file.close();
+	}
+}
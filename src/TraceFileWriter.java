@@ -0,0 +1,160 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Writes membrane samples to a TraceFileFormat file as they are produced. The block currently being filled is memory
+ * mapped, so a sample costs a few absolute puts into the page cache. Samples must arrive in non-decreasing time, which is
+ * how NetworkEngine and the other producers emit them.
+ *
+ */
+public class TraceFileWriter implements TraceSink, Closeable {
+
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	private final double dt;
+	private final double startTime;
+	private final int[] sortedIds;
+	private final int[] sortedToColumn;
+	private final int[] channels;
+	private final int valueSize;
+	private final int blockSamples;
+	private final long dataOffset;
+	private final long blockSize;
+
+	private MappedByteBuffer block;
+	private long mappedBlock = -1;
+	private long numSamples = 0;
+
+	/**
+	 * Creates the file and writes its header
+	 * @param path file to create, replaced if it exists
+	 * @param dt time between samples in ms
+	 * @param startTime time of sample 0 in ms
+	 * @param neuronIds neurons stored in the file, in column order
+	 * @param channels channel codes from TraceFileFormat
+	 * @param singlePrecision store floats instead of doubles
+	 * @param blockSamples samples per neuron in each block
+	 * @throws IOException
+	 */
+	public TraceFileWriter(Path path, double dt, double startTime, int[] neuronIds, int[] channels,
+			boolean singlePrecision, int blockSamples) throws IOException {
+		this.dt = dt;
+		this.startTime = startTime;
+		this.channels = channels.clone();
+		this.valueSize = singlePrecision ? 4 : 8;
+		this.blockSamples = blockSamples;
+		this.dataOffset = TraceFileFormat.dataOffset(neuronIds.length, channels.length);
+		this.blockSize = TraceFileFormat.blockSize(neuronIds.length, channels.length, valueSize, blockSamples);
+		if(blockSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Block of " + blockSize + " bytes cannot be mapped, use fewer samples per block");
+		}
+
+		//Sorted ids let a sample find its column without hashing
+		sortedIds = neuronIds.clone();
+		Arrays.sort(sortedIds);
+		sortedToColumn = new int[neuronIds.length];
+		for(int column = 0; column < neuronIds.length; column++) {
+			sortedToColumn[Arrays.binarySearch(sortedIds, neuronIds[column])] = column;
+		}
+
+		file = new RandomAccessFile(path.toFile(), "rw");
+		file.setLength(0);
+		channel = file.getChannel();
+
+		MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, dataOffset);
+		header.putInt(TraceFileFormat.MAGIC);
+		header.putInt(TraceFileFormat.VERSION);
+		header.putDouble(dt);
+		header.putDouble(startTime);
+		header.putLong(0);
+		header.putInt(neuronIds.length);
+		header.putInt(channels.length);
+		header.putInt(valueSize);
+		header.putInt(blockSamples);
+		for(int id : neuronIds) {
+			header.putInt(id);
+		}
+		for(int code : channels) {
+			header.putInt(code);
+		}
+	}
+
+	/**
+	 * Creates a file holding voltage, potassium and sodium conductance as floats in blocks of 256 samples, with
+	 * sample 0 at time 0 as the simulations start there
+	 * @param path
+	 * @param dt
+	 * @param neuronIds
+	 * @throws IOException
+	 */
+	public TraceFileWriter(Path path, double dt, int[] neuronIds) throws IOException {
+		this(path, dt, 0, neuronIds, new int[]{TraceFileFormat.CHANNEL_VOLTAGE, TraceFileFormat.CHANNEL_CONDUCTANCE_K,
+				TraceFileFormat.CHANNEL_CONDUCTANCE_NA}, true, 256);
+	}
+
+	@Override
+	public void sample(int neuronId, double time, double voltage, double conductanceK, double conductanceNa) {
+		int sorted = Arrays.binarySearch(sortedIds, neuronId);
+		if(sorted < 0) {
+			return;
+		}
+		long sampleIndex = Math.round((time - startTime) / dt);
+		if(sampleIndex < 0) {
+			return;
+		}
+		try {
+			long blockIndex = sampleIndex / blockSamples;
+			if(blockIndex != mappedBlock) {
+				if(blockIndex < mappedBlock) {
+					throw new IllegalStateException("Samples must arrive in time order");
+				}
+				block = channel.map(FileChannel.MapMode.READ_WRITE, dataOffset + blockIndex * blockSize, blockSize);
+				mappedBlock = blockIndex;
+			}
+		}
+		catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		int column = sortedToColumn[sorted];
+		int inBlock = (int) (sampleIndex % blockSamples);
+		for(int c = 0; c < channels.length; c++) {
+			double value;
+			switch(channels[c]) {
+			case TraceFileFormat.CHANNEL_VOLTAGE:        value = voltage;       break;
+			case TraceFileFormat.CHANNEL_CONDUCTANCE_K:  value = conductanceK;  break;
+			case TraceFileFormat.CHANNEL_CONDUCTANCE_NA: value = conductanceNa; break;
+			default:                                     value = Double.NaN;
+			}
+			int position = (int) (((long) (column * channels.length + c) * blockSamples + inBlock) * valueSize);
+			if(valueSize == 4) {
+				block.putFloat(position, (float) value);
+			}
+			else {
+				block.putDouble(position, value);
+			}
+		}
+		numSamples = Math.max(numSamples, sampleIndex + 1);
+	}
+
+	/**
+	 * Records the sample count in the header, trims the file to the last used block and closes it
+	 */
+	@Override
+	public void close() throws IOException {
+		block = null;
+		long numBlocks = (numSamples + blockSamples - 1) / blockSamples;
+		file.setLength(dataOffset + numBlocks * blockSize);
+		MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, dataOffset);
+		header.putLong(TraceFileFormat.NUM_SAMPLES_OFFSET, numSamples);
+		header.force();
+		channel.close();
+		file.close();
+	}
+}
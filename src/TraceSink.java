@@ -0,0 +1,24 @@
+/**
+ * Consumer of membrane samples as they are produced by an integration loop. Samples are handed over one at a time
+ * and are not retained by the producer, so a sink decides how much memory a trace costs: nothing for NONE, a bounded
+ * amount for a decimated or windowed stream, or a full history for ArrayTraceSink.
+ *
+ */
+public interface TraceSink {
+
+	/* Discards every sample */
+	TraceSink NONE = new TraceSink() {
+		@Override
+		public void sample(int neuronId, double time, double voltage, double conductanceK, double conductanceNa) { }
+	};
+
+	/**
+	 * Receives one sample
+	 * @param neuronId neuron the sample belongs to
+	 * @param time in ms
+	 * @param voltage in mV above rest
+	 * @param conductanceK potassium conductance
+	 * @param conductanceNa sodium conductance
+	 */
+	void sample(int neuronId, double time, double voltage, double conductanceK, double conductanceNa);
+}
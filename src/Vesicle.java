@@ -13,7 +13,7 @@ public class Vesicle {
 	private static final int DOPAMINE     = 1;
 	private static final int ANTIDOPAMINE = 2;
 	
-	private static List<Neurotransmitter> vesicle; 
+	private List<Neurotransmitter> vesicle; 
 	
 	/**
 	 * Instantiates the vesicle with two default neurotransmitters Dopamine and Antidopamine
@@ -33,4 +33,20 @@ public class Vesicle {
 	public List<Neurotransmitter> getVesicle() {
 		return vesicle;
 	}
+	
+	/**
+	 * Returns how many neurotransmitters of a type the vesicle releases
+	 * @param type
+	 * @return
+	 */
+	public int getTransmitterCount(int type) {
+		int count = 0;
+		if(dopamine.getTransmitterType() == type) {
+			count++;
+		}
+		if(antidopamine.getTransmitterType() == type) {
+			count++;
+		}
+		return count;
+	}
 }
@@ -0,0 +1,28 @@
+/**
+ * Forwards only the samples that fall inside a time window to another sink
+ *
+ */
+public class WindowedTraceSink implements TraceSink {
+
+	private final TraceSink downstream;
+	private final double startTime;
+	private final double endTime;
+
+	/**
+	 * @param downstream sink receiving the samples inside the window
+	 * @param startTime first time kept, in ms
+	 * @param endTime last time kept, in ms
+	 */
+	public WindowedTraceSink(TraceSink downstream, double startTime, double endTime) {
+		this.downstream = downstream;
+		this.startTime  = startTime;
+		this.endTime    = endTime;
+	}
+
+	@Override
+	public void sample(int neuronId, double time, double voltage, double conductanceK, double conductanceNa) {
+		if(time >= startTime && time <= endTime) {
+			downstream.sample(neuronId, time, voltage, conductanceK, conductanceNa);
+		}
+	}
+}